@@ -3,9 +3,11 @@ package com.torresj.unseenauth;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EntityScan("com.torresj.unseen.entities")
+@EntityScan({"com.torresj.unseen.entities", "com.torresj.unseenauth.entities"})
+@EnableScheduling
 public class UnseenAuthApplication {
 
   public static void main(String[] args) {
@@ -0,0 +1,47 @@
+package com.torresj.unseenauth.config;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+import java.util.function.Supplier;
+
+/**
+ * Handle to abort, from another thread, the HTTP requests sent by a piece of code. The social
+ * request factories register every request they create in the handle of the current thread, and
+ * aborting it closes the connection of the exchange in flight, so a blocked read returns at once.
+ * Requests created after the abort are aborted before they are sent.
+ */
+public class AbortableRequest {
+
+  private static final ThreadLocal<AbortableRequest> CURRENT = new ThreadLocal<>();
+
+  private Cancellable request;
+  private boolean aborted;
+
+  /** Runs the code with this handle, so its requests can be aborted */
+  public <T> T run(Supplier<T> code) {
+    AbortableRequest previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return code.get();
+    } finally {
+      if (previous == null) CURRENT.remove();
+      else CURRENT.set(previous);
+    }
+  }
+
+  public synchronized void abort() {
+    aborted = true;
+    if (request != null) request.cancel();
+  }
+
+  /** Registers a request created by the current thread, if it runs with a handle */
+  public static void register(Cancellable request) {
+    AbortableRequest current = CURRENT.get();
+    if (current != null) current.set(request);
+  }
+
+  private synchronized void set(Cancellable request) {
+    if (aborted) request.cancel();
+    else this.request = request;
+  }
+}
@@ -1,14 +1,26 @@
 package com.torresj.unseenauth.config;
 
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @Configuration
 @Profile("test || local")
 @EnableJpaRepositories(
     basePackages = {
       "com.torresj.unseen.repositories.mutations",
-      "com.torresj.unseen.repositories.queries"
+      "com.torresj.unseen.repositories.queries",
+      "com.torresj.unseenauth.repositories.mutations",
+      "com.torresj.unseenauth.repositories.queries"
     })
-public class H2JpaConfig {}
+public class H2JpaConfig {
+  // A single datasource, the mutations transaction manager is the default one
+  @Bean({"transactionManager", "mutationsTransactionManager"})
+  public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+    return new JpaTransactionManager(entityManagerFactory);
+  }
+}
@@ -0,0 +1,40 @@
+package com.torresj.unseenauth.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.HashSet;
+import java.util.Map;
+
+/** Sends every request through the client of its host, or the default one for unknown hosts */
+class HostRoutingRequestFactory implements ClientHttpRequestFactory, DisposableBean {
+
+  private final Map<String, HttpComponentsClientHttpRequestFactory> factoriesByHost;
+  private final HttpComponentsClientHttpRequestFactory defaultFactory;
+
+  HostRoutingRequestFactory(
+      Map<String, HttpComponentsClientHttpRequestFactory> factoriesByHost,
+      HttpComponentsClientHttpRequestFactory defaultFactory) {
+    this.factoriesByHost = Map.copyOf(factoriesByHost);
+    this.defaultFactory = defaultFactory;
+  }
+
+  @Override
+  public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+    return factoriesByHost
+        .getOrDefault(uri.getHost(), defaultFactory)
+        .createRequest(uri, httpMethod);
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    // Several hosts can share the client of a provider
+    for (var factory : new HashSet<>(factoriesByHost.values())) factory.destroy();
+    defaultFactory.destroy();
+  }
+}
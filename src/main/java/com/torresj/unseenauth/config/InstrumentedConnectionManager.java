@@ -0,0 +1,103 @@
+package com.torresj.unseenauth.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Connection pool of one provider, with its usage and the time waited for a connection as metrics
+ */
+class InstrumentedConnectionManager implements HttpClientConnectionManager {
+
+  private final PoolingHttpClientConnectionManager delegate;
+  private final Timer leaseTimer;
+
+  InstrumentedConnectionManager(
+      PoolingHttpClientConnectionManager delegate, String provider, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.leaseTimer =
+        Timer.builder("social.http.pool.lease")
+            .description("Time waited for a pooled connection")
+            .tag("provider", provider)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    gauge("social.http.pool.leased", provider, PoolStats::getLeased, meterRegistry);
+    gauge("social.http.pool.pending", provider, PoolStats::getPending, meterRegistry);
+    gauge("social.http.pool.available", provider, PoolStats::getAvailable, meterRegistry);
+    gauge("social.http.pool.max", provider, PoolStats::getMax, meterRegistry);
+  }
+
+  @Override
+  public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+    LeaseRequest request = delegate.lease(id, route, requestTimeout, state);
+    return new LeaseRequest() {
+      @Override
+      public ConnectionEndpoint get(Timeout timeout)
+          throws InterruptedException, ExecutionException, TimeoutException {
+        long start = System.nanoTime();
+        try {
+          return request.get(timeout);
+        } finally {
+          leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+  @Override
+  public void release(ConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+    delegate.release(endpoint, newState, validDuration);
+  }
+
+  @Override
+  public void connect(ConnectionEndpoint endpoint, TimeValue connectTimeout, HttpContext context)
+      throws IOException {
+    delegate.connect(endpoint, connectTimeout, context);
+  }
+
+  @Override
+  public void upgrade(ConnectionEndpoint endpoint, HttpContext context) throws IOException {
+    delegate.upgrade(endpoint, context);
+  }
+
+  @Override
+  public void close(CloseMode closeMode) {
+    delegate.close(closeMode);
+  }
+
+  @Override
+  public void close() throws IOException {
+    delegate.close();
+  }
+
+  private void gauge(
+      String name,
+      String provider,
+      ToDoubleFunction<PoolStats> value,
+      MeterRegistry meterRegistry) {
+    Gauge.builder(name, delegate, pool -> value.applyAsDouble(pool.getTotalStats()))
+        .tag("provider", provider)
+        .register(meterRegistry);
+  }
+}
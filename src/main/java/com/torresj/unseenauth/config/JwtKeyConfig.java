@@ -0,0 +1,30 @@
+package com.torresj.unseenauth.config;
+
+import com.torresj.unseenauth.services.JwtSigningKey;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Slf4j
+public class JwtKeyConfig {
+
+  /**
+   * Key configured with jwt.token.* properties. Its tokens have no kid header and it is the only
+   * signing key until a key ring is configured under jwt.keys.
+   */
+  @Bean
+  public JwtSigningKey jwtSigningKey(
+      @Value("${jwt.token.secret}") String secret,
+      @Value("${jwt.token.algorithm:HS256}") SignatureAlgorithm algorithm,
+      @Value("${jwt.token.key-id:unseen-auth}") String keyId,
+      @Value("${jwt.token.private-key:}") String privateKey,
+      @Value("${jwt.token.public-key:}") String publicKey) {
+    log.info("[JWT KEY CONFIG] Using " + algorithm + " key");
+    return algorithm.isHmac()
+        ? JwtSigningKey.hmac(secret)
+        : JwtSigningKey.of(keyId, algorithm, secret, privateKey, publicKey);
+  }
+}
@@ -0,0 +1,17 @@
+package com.torresj.unseenauth.config;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.time.Instant;
+
+/**
+ * One entry of the jwt.keys ring. The key signs from activateAt until the next key activates, and
+ * stays valid for verification until the longest token it may have signed has expired.
+ */
+public record JwtKeyProperties(
+    String id,
+    SignatureAlgorithm algorithm,
+    String secret,
+    String privateKey,
+    String publicKey,
+    Instant activateAt) {}
@@ -1,11 +1,13 @@
 package com.torresj.unseenauth.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 
 import javax.sql.DataSource;
 
@@ -22,7 +24,8 @@ public class MutationDatasourceConfig {
 
   @Bean
   @Primary
-  public DataSource mutationsDataSource() {
-    return mutationsDataSourceProperties().initializeDataSourceBuilder().build();
+  public DataSource mutationsDataSource(Environment environment, MeterRegistry meterRegistry) {
+    return DataSourcePools.create(
+        "mutations", mutationsDataSourceProperties(), environment, meterRegistry);
   }
 }
@@ -22,7 +22,10 @@ import java.util.Objects;
 @Profile("!test && !local")
 @EnableTransactionManagement
 @EnableJpaRepositories(
-    basePackages = "com.torresj.unseen.repositories.mutations",
+    basePackages = {
+      "com.torresj.unseen.repositories.mutations",
+      "com.torresj.unseenauth.repositories.mutations"
+    },
     entityManagerFactoryRef = "mutationsEntityManagerFactory",
     transactionManagerRef = "mutationsTransactionManager")
 public class MutationJpaConfig {
@@ -33,7 +36,7 @@ public class MutationJpaConfig {
       EntityManagerFactoryBuilder builder) {
     return builder
         .dataSource(dataSource)
-        .packages("com.torresj.unseen.entities")
+        .packages("com.torresj.unseen.entities", "com.torresj.unseenauth.entities")
         .properties(jpaProperties())
         .build();
   }
@@ -1,10 +1,14 @@
 package com.torresj.unseenauth.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 
 import javax.sql.DataSource;
 
@@ -18,8 +22,24 @@ public class QueryDatasourceConfig {
     return new DataSourceProperties();
   }
 
+  /**
+   * The replica, or with datasource.routing.enabled a ReplicaRoutingDataSource that also sends
+   * reads to the mutations datasource when the replica is behind
+   */
   @Bean
-  public DataSource queriesDataSource() {
-    return queriesDataSourceProperties().initializeDataSourceBuilder().build();
+  public DataSource queriesDataSource(
+      @Qualifier("mutationsDataSource") DataSource mutationsDataSource,
+      Environment environment,
+      MeterRegistry meterRegistry,
+      @Value("${datasource.routing.enabled:false}") boolean routingEnabled,
+      @Value("${datasource.routing.lag-query:SHOW SLAVE STATUS}") String lagQuery,
+      @Value("${datasource.routing.lag-column:Seconds_Behind_Master}") String lagColumn,
+      @Value("${datasource.routing.max-lag:1000}") long maxLag) {
+    DataSource replica =
+        DataSourcePools.create(
+            "queries", queriesDataSourceProperties(), environment, meterRegistry);
+    if (!routingEnabled) return replica;
+    return new ReplicaRoutingDataSource(
+        mutationsDataSource, replica, lagQuery, lagColumn, maxLag, meterRegistry);
   }
 }
@@ -1,7 +1,9 @@
 package com.torresj.unseenauth.config;
 
 import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
 import org.springframework.context.annotation.Bean;
@@ -14,6 +16,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -21,17 +24,26 @@ import java.util.Objects;
 @Profile("!test && !local")
 @EnableTransactionManagement
 @EnableJpaRepositories(
-    basePackages = "com.torresj.unseen.repositories.queries",
+    basePackages = {
+      "com.torresj.unseen.repositories.queries",
+      "com.torresj.unseenauth.repositories.queries"
+    },
     entityManagerFactoryRef = "queriesEntityManagerFactory",
     transactionManagerRef = "queriesTransactionManager")
 public class QueryJpaConfig {
   @Bean
   public LocalContainerEntityManagerFactoryBean queriesEntityManagerFactory(
-      @Qualifier("queriesDataSource") DataSource dataSource, EntityManagerFactoryBuilder builder) {
+      @Qualifier("queriesDataSource") DataSource dataSource,
+      EntityManagerFactoryBuilder builder,
+      @Qualifier("userCacheHibernateProperties")
+          ObjectProvider<HibernatePropertiesCustomizer> userCacheHibernateProperties) {
+    // Users are only cached where they are read
+    Map<String, Object> properties = new HashMap<>(jpaProperties());
+    userCacheHibernateProperties.ifAvailable(customizer -> customizer.customize(properties));
     return builder
         .dataSource(dataSource)
         .packages("com.torresj.unseen.entities")
-        .properties(jpaProperties())
+        .properties(properties)
         .build();
   }
 
@@ -0,0 +1,64 @@
+package com.torresj.unseenauth.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Reactive variant of the service, started with spring.main.web-application-type=reactive. It runs
+ * on Netty, and social logins call the providers with a non-blocking WebClient, which shares the
+ * social.http.* settings of the RestTemplate pools. Database access stays blocking and is offloaded
+ * by ReactiveAuthController.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+  // Tomcat is also on the classpath, and would be picked otherwise
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  // Not auto-configured in reactive applications. The RestTemplate is still used by the Google
+  // ID token verifier, and by the servlet social services that share the context
+  @Bean
+  public RestTemplateBuilder restTemplateBuilder(
+      ObjectProvider<RestTemplateCustomizer> customizers) {
+    return new RestTemplateBuilder().customizers(customizers.orderedStream().toList());
+  }
+
+  @Bean
+  public WebClient socialWebClient(
+      WebClient.Builder webClientBuilder,
+      @Value("${social.http.max-connections:50}") int maxConnections,
+      @Value("${social.http.connect-timeout:2000}") int connectTimeout,
+      @Value("${social.http.read-timeout:5000}") long readTimeout,
+      @Value("${social.http.idle-timeout:30000}") long idleTimeout) {
+    var connectionProvider =
+        ConnectionProvider.builder("social")
+            .maxConnections(maxConnections)
+            .pendingAcquireTimeout(Duration.ofMillis(connectTimeout))
+            .maxIdleTime(Duration.ofMillis(idleTimeout))
+            .metrics(true)
+            .build();
+    var httpClient =
+        HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+            .responseTimeout(Duration.ofMillis(readTimeout));
+    // The builder adds the http.client.requests observation
+    return webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+  }
+}
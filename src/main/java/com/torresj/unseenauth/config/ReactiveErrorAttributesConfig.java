@@ -0,0 +1,29 @@
+package com.torresj.unseenauth.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.error.ErrorAttributeOptions;
+import org.springframework.boot.web.reactive.error.DefaultErrorAttributes;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+/** Same error body as CustomErrorAttributesConfig, for the reactive variant */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveErrorAttributesConfig extends DefaultErrorAttributes {
+
+  @Override
+  public Map<String, Object> getErrorAttributes(
+      ServerRequest request, ErrorAttributeOptions options) {
+    Map<String, Object> errorAttributes = super.getErrorAttributes(request, options);
+    if (getError(request) instanceof ResponseStatusException exception)
+      errorAttributes.put("reason", exception.getReason());
+    else log.warn("Exception is not ResponseStatusException");
+
+    return errorAttributes;
+  }
+}
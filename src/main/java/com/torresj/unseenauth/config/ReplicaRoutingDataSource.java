@@ -0,0 +1,129 @@
+package com.torresj.unseenauth.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Query datasource that sends reads to the replica, and to the primary when the current thread runs
+ * inside readFromPrimary, which is used for users written in the last moments. Replica lag is
+ * sampled periodically and published as datasource.replica.lag, and while it is above the maximum,
+ * or can not be read, every read goes to the primary. Connections by target are counted in
+ * datasource.routing.connections.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  public enum Target {
+    PRIMARY,
+    REPLICA
+  }
+
+  private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+  private final JdbcTemplate replica;
+  private final String lagQuery;
+  private final String lagColumn;
+  private final long maxLag;
+  private final Counter primaryConnections;
+  private final Counter replicaConnections;
+
+  // Millis, NaN until sampled or when replication is not running
+  private volatile double lag = Double.NaN;
+  private volatile boolean replicaAvailable = true;
+
+  public ReplicaRoutingDataSource(
+      DataSource primaryDataSource,
+      DataSource replicaDataSource,
+      String lagQuery,
+      String lagColumn,
+      long maxLag,
+      MeterRegistry meterRegistry) {
+    this.replica = new JdbcTemplate(replicaDataSource);
+    this.lagQuery = lagQuery;
+    this.lagColumn = lagColumn;
+    this.maxLag = maxLag;
+    this.primaryConnections = connections(meterRegistry, Target.PRIMARY);
+    this.replicaConnections = connections(meterRegistry, Target.REPLICA);
+    Gauge.builder("datasource.replica.lag", () -> lag)
+        .description("Replication lag of the query datasource")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+    Gauge.builder("datasource.replica.available", () -> replicaAvailable ? 1 : 0)
+        .description("1 when reads are sent to the replica")
+        .register(meterRegistry);
+
+    setTargetDataSources(
+        Map.of(Target.PRIMARY, primaryDataSource, Target.REPLICA, replicaDataSource));
+    setDefaultTargetDataSource(replicaDataSource);
+  }
+
+  /** Runs a read on the primary, for data that may not have reached the replica yet */
+  public static <T> T readFromPrimary(Supplier<T> read) {
+    Boolean previous = FORCE_PRIMARY.get();
+    FORCE_PRIMARY.set(Boolean.TRUE);
+    try {
+      return read.get();
+    } finally {
+      if (previous == null) FORCE_PRIMARY.remove();
+    }
+  }
+
+  public boolean isReplicaAvailable() {
+    return replicaAvailable;
+  }
+
+  @Scheduled(fixedDelayString = "${datasource.routing.lag-check-interval:1000}")
+  public void sampleLag() {
+    Long sampled;
+    try {
+      sampled =
+          replica.query(
+              lagQuery,
+              resultSet -> {
+                // Not configured as a replica, it has all the writes
+                if (!resultSet.next()) return 0L;
+                long seconds = resultSet.getLong(lagColumn);
+                return resultSet.wasNull() ? null : seconds * 1000;
+              });
+    } catch (RuntimeException exception) {
+      log.warn("[REPLICA ROUTING] Replica lag could not be read: " + exception.getMessage());
+      sampled = null;
+    }
+
+    lag = sampled == null ? Double.NaN : sampled;
+    boolean available = sampled != null && sampled <= maxLag;
+    if (available != replicaAvailable)
+      log.warn(
+          "[REPLICA ROUTING] "
+              + (available ? "Reads back to the replica" : "Reads failed over to the primary")
+              + ", lag "
+              + (sampled == null ? "unknown" : sampled + "ms"));
+    replicaAvailable = available;
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (FORCE_PRIMARY.get() != null || !replicaAvailable) {
+      primaryConnections.increment();
+      return Target.PRIMARY;
+    }
+    replicaConnections.increment();
+    return Target.REPLICA;
+  }
+
+  private static Counter connections(MeterRegistry meterRegistry, Target target) {
+    return Counter.builder("datasource.routing.connections")
+        .description("Query datasource connections by target")
+        .tag("target", target.name().toLowerCase())
+        .register(meterRegistry);
+  }
+}
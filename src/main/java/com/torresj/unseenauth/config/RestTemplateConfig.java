@@ -1,13 +1,152 @@
 package com.torresj.unseenauth.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HTTP client for the social providers. Each provider has its own keep-alive connection pool, so a
+ * slow provider can not take the connections of the other one, and TLS sessions are reused across
+ * logins. Settings are read from social.login.[provider].* with social.http.* as defaults. Pool
+ * usage and lease wait are published as social.http.pool.* and request latency per host as
+ * http.client.requests.
+ */
 @Configuration
 public class RestTemplateConfig {
+
+  private static final String DEFAULTS = "social.http.";
+
+  @Bean
+  public ClientHttpRequestFactory socialRequestFactory(
+      Environment environment,
+      MeterRegistry meterRegistry,
+      @Value("${social.login.google.url}") String googleUrl,
+      @Value("${social.login.facebook.url}") String facebookUrl,
+      @Value("${social.login.facebook.picture.url}") String facebookPictureUrl) {
+    var google = requestFactory("google", environment, meterRegistry);
+    var facebook = requestFactory("facebook", environment, meterRegistry);
+
+    Map<String, HttpComponentsClientHttpRequestFactory> factoriesByHost = new HashMap<>();
+    factoriesByHost.put(host(googleUrl), google);
+    factoriesByHost.put(host(facebookUrl), facebook);
+    factoriesByHost.put(host(facebookPictureUrl), facebook);
+    return new HostRoutingRequestFactory(
+        factoriesByHost, requestFactory("default", environment, meterRegistry));
+  }
+
+  @Bean
+  public RestTemplate getRestTemplate(
+      RestTemplateBuilder restTemplateBuilder, ClientHttpRequestFactory socialRequestFactory) {
+    // The builder adds the http.client.requests observation
+    return restTemplateBuilder.requestFactory(() -> socialRequestFactory).build();
+  }
+
+  /** Threads to make the requests of a social login concurrently */
+  @Bean
+  public AsyncTaskExecutor socialLoginExecutor(
+      @Value("${social.http.threads:64}") int threads,
+      @Value("${threads.virtual.enabled:false}") boolean virtualThreads) {
+    return executor("social-login-", threads, virtualThreads);
+  }
+
+  /**
+   * Threads to send hedged requests to the social providers. Without a queue, a hedge is rejected,
+   * and skipped, when every thread is busy, instead of waiting behind other hedges.
+   */
   @Bean
-  public RestTemplate getRestTemplate() {
-    return new RestTemplate();
+  public AsyncTaskExecutor socialHedgingExecutor(
+      @Value("${social.hedging.threads:16}") int threads,
+      @Value("${threads.virtual.enabled:false}") boolean virtualThreads) {
+    return executor("social-hedging-", threads, 0, virtualThreads);
+  }
+
+  private static AsyncTaskExecutor executor(String prefix, int threads, boolean virtualThreads) {
+    return executor(prefix, threads, Integer.MAX_VALUE, virtualThreads);
+  }
+
+  // Virtual threads are not pooled, the provider connection pools bound the requests
+  private static AsyncTaskExecutor executor(
+      String prefix, int threads, int queueCapacity, boolean virtualThreads) {
+    if (virtualThreads) return new TaskExecutorAdapter(VirtualThreads.newExecutor(prefix));
+
+    var executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(threads);
+    executor.setMaxPoolSize(threads);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix(prefix);
+    executor.initialize();
+    return executor;
+  }
+
+  private static HttpComponentsClientHttpRequestFactory requestFactory(
+      String provider, Environment environment, MeterRegistry meterRegistry) {
+    int maxConnections = (int) property(environment, provider, "max-connections", 50);
+    long connectTimeout = property(environment, provider, "connect-timeout", 2000);
+    long readTimeout = property(environment, provider, "read-timeout", 5000);
+    long keepAlive = property(environment, provider, "keep-alive", 60000);
+    long idleTimeout = property(environment, provider, "idle-timeout", 30000);
+
+    // One pool per provider, so all its connections go to the same route
+    var connectionManager =
+        PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnections)
+            .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+            .build();
+
+    var httpClient =
+        HttpClients.custom()
+            .setConnectionManager(
+                new InstrumentedConnectionManager(connectionManager, provider, meterRegistry))
+            .setDefaultRequestConfig(
+                RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeout))
+                    .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                    .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+                    .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive))
+                    .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout))
+            .build();
+    return new HttpComponentsClientHttpRequestFactory(httpClient) {
+      // Registered so that the request that loses a hedge can be aborted
+      @Override
+      protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        if (request instanceof Cancellable cancellable) AbortableRequest.register(cancellable);
+        return request;
+      }
+    };
+  }
+
+  private static long property(
+      Environment environment, String provider, String key, long defaultValue) {
+    long value = environment.getProperty(DEFAULTS + key, Long.class, defaultValue);
+    return environment.getProperty("social.login." + provider + "." + key, Long.class, value);
+  }
+
+  private static String host(String url) {
+    return URI.create(url).getHost();
   }
 }
@@ -0,0 +1,75 @@
+package com.torresj.unseenauth.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.torresj.unseen.entities.UserEntity;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate second level cache for users, enabled with users.l2-cache.enabled. Users are cached by
+ * id in the users region, and the ids found by email in users.by-email, so a lookup by email, as by
+ * a natural id, is resolved without the database. Emails not found are never cached. Both regions
+ * are local Caffeine caches, bounded to max-size entries for ttl millis. Writes made through the
+ * same entity manager invalidate them, and UserService evicts and reloads users written through the
+ * mutations datasource. Statistics are published as hibernate.* metrics, by region.
+ */
+@Configuration
+@ConditionalOnProperty("users.l2-cache.enabled")
+public class UserCacheConfig {
+
+  public static final String REGION = "users";
+  public static final String EMAIL_REGION = "users.by-email";
+  private static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+  // A cache manager per context, regions are not shared with other applications in the same JVM
+  @Bean(destroyMethod = "close")
+  public CacheManager userCacheManager(
+      @Value("${users.l2-cache.max-size:10000}") long maxSize,
+      @Value("${users.l2-cache.ttl:60000}") long ttl) {
+    var provider = new CaffeineCachingProvider();
+    CacheManager cacheManager =
+        provider.getCacheManager(
+            URI.create("urn:unseen-auth:users:" + UUID.randomUUID()),
+            provider.getDefaultClassLoader());
+    cacheManager.createCache(REGION, region(maxSize, ttl));
+    cacheManager.createCache(EMAIL_REGION, region(maxSize, ttl));
+    // Not bounded, an evicted timestamp would let stale query results through
+    cacheManager.createCache(TIMESTAMPS_REGION, new CaffeineConfiguration<>());
+    return cacheManager;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer userCacheHibernateProperties(CacheManager userCacheManager) {
+    return properties -> {
+      properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+      properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+      properties.put(AvailableSettings.CACHE_REGION_FACTORY, ConfigSettings.SIMPLE_FACTORY_NAME);
+      properties.put(ConfigSettings.CACHE_MANAGER, userCacheManager);
+      properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "create");
+      properties.put(
+          AvailableSettings.CLASS_CACHE_PREFIX + "." + UserEntity.class.getName(),
+          "read-write," + REGION);
+      properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+    };
+  }
+
+  private static CaffeineConfiguration<Object, Object> region(long maxSize, long ttl) {
+    var configuration = new CaffeineConfiguration<>();
+    configuration.setMaximumSize(OptionalLong.of(maxSize));
+    configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(ttl)));
+    configuration.setStatisticsEnabled(true);
+    return configuration;
+  }
+}
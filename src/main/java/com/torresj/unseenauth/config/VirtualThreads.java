@@ -0,0 +1,41 @@
+package com.torresj.unseenauth.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Executors of virtual threads. The service is built for Java 17, so virtual threads are created
+ * through reflection, and only work when it runs on Java 21 or later.
+ */
+public final class VirtualThreads {
+
+  private VirtualThreads() {}
+
+  public static boolean isSupported() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException exception) {
+      return false;
+    }
+  }
+
+  /** Executor that runs each task on a new virtual thread named prefix + number */
+  public static ExecutorService newExecutor(String prefix) {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      builder =
+          builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      var threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService)
+          Executors.class
+              .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+              .invoke(null, threadFactory);
+    } catch (ReflectiveOperationException | UnsupportedOperationException exception) {
+      throw new IllegalStateException(
+          "Virtual threads need Java 21, running on " + Runtime.version(), exception);
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.torresj.unseenauth.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves requests on virtual threads instead of the Tomcat worker pool, when
+ * threads.virtual.enabled is set. Requests block mostly on JDBC and on the social providers, and a
+ * blocked virtual thread releases its carrier, so concurrency is capped by the connection pools
+ * instead of the threads. Outbound social requests use virtual threads too, see RestTemplateConfig.
+ */
+@Configuration
+@ConditionalOnProperty(value = "threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadsConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+    var executor = VirtualThreads.newExecutor("tomcat-virtual-");
+    log.info("[VIRTUAL THREADS] Serving requests on virtual threads");
+    return protocolHandler -> protocolHandler.setExecutor(executor);
+  }
+}
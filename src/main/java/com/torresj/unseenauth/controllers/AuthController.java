@@ -5,12 +5,15 @@ import com.torresj.unseenauth.exceptions.*;
 import com.torresj.unseenauth.services.LoginService;
 import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import lombok.RequiredArgsConstructor;
+import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,14 +22,20 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/v1/auth/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Slf4j
-@RequiredArgsConstructor
+@AllArgsConstructor
 public class AuthController {
 
   private final LoginService loginService;
 
+  @Value("${jwt.batch.max-size:100}")
+  private final int maxBatchSize;
+
   @Operation(summary = "Login with user and password")
   @ApiResponses(
       value = {
@@ -209,4 +218,120 @@ public class AuthController {
       throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, exception.getMessage());
     }
   }
+
+  @Operation(summary = "Revoke Unseen JWT token before its expiration")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "204", description = "Revoked"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "501", description = "Revocation disabled")
+      })
+  @PostMapping("/revoke")
+  public ResponseEntity<Void> revoke(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              description = "Unseen Authorization DTO with JWT to be revoked",
+              required = true,
+              content = @Content(schema = @Schema(implementation = AuthorizeRequestDTO.class)))
+          @RequestBody
+          AuthorizeRequestDTO authorizeRequestDTO) {
+    if (!loginService.isRevocationEnabled()) {
+      log.warn("[UNSEEN REVOKE] Revocation disabled");
+      throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Token revocation is disabled");
+    }
+
+    try {
+      log.info("[UNSEEN REVOKE] revoking jwt " + authorizeRequestDTO.jwt());
+
+      loginService.revoke(authorizeRequestDTO.jwt());
+
+      return ResponseEntity.noContent().build();
+
+    } catch (JwtException exception) {
+      log.error("[UNSEEN REVOKE] JWT exception : " + exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, exception.getMessage());
+    }
+  }
+
+  @Operation(summary = "Get a new JWT with a refresh token, which is rotated")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Refresh successful",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = LoginResponseDTO.class))
+            }),
+        @ApiResponse(responseCode = "401", description = "Unauthorized"),
+        @ApiResponse(responseCode = "501", description = "Refresh tokens disabled")
+      })
+  @PostMapping("/refresh")
+  public ResponseEntity<LoginResponseDTO> refresh(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              description = "Refresh DTO with the refresh token from the last login or refresh",
+              required = true,
+              content = @Content(schema = @Schema(implementation = RefreshRequestDTO.class)))
+          @RequestBody
+          RefreshRequestDTO refreshRequestDTO) {
+    if (!loginService.isRefreshEnabled()) {
+      log.warn("[UNSEEN REFRESH] Refresh tokens disabled");
+      throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "Refresh tokens are disabled");
+    }
+
+    try {
+      log.info("[UNSEEN REFRESH] Refreshing jwt");
+
+      LoginResponseDTO response = loginService.refresh(refreshRequestDTO.refreshToken());
+
+      log.info("[UNSEEN REFRESH] Refresh for user " + response.email() + " success");
+      return ResponseEntity.ok(response);
+
+    } catch (InvalidRefreshTokenException exception) {
+      log.warn("[UNSEEN REFRESH] Invalid refresh token");
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, exception.getMessage());
+    } catch (JwtException exception) {
+      log.error("[UNSEEN REFRESH] JWT exception : " + exception.getMessage());
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, exception.getMessage());
+    }
+  }
+
+  @Operation(summary = "Authorize a batch of Unseen JWT tokens")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Result for every token, in the same order",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  array = @ArraySchema(schema = @Schema(implementation = AuthorizeResultDTO.class)))
+            }),
+        @ApiResponse(responseCode = "400", description = "Batch too large")
+      })
+  @PostMapping("/authorize/batch")
+  public ResponseEntity<List<AuthorizeResultDTO>> authorizeBatch(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              description = "List of Unseen Authorization DTOs with JWTs to be verified",
+              required = true,
+              content =
+                  @Content(
+                      array =
+                          @ArraySchema(
+                              schema = @Schema(implementation = AuthorizeRequestDTO.class))))
+          @RequestBody
+          List<AuthorizeRequestDTO> authorizeRequestDTOs) {
+    log.info("[UNSEEN AUTHORIZE BATCH] validating " + authorizeRequestDTOs.size() + " jwts");
+
+    if (authorizeRequestDTOs.size() > maxBatchSize) {
+      log.warn("[UNSEEN AUTHORIZE BATCH] Batch too large");
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch too large");
+    }
+
+    var results =
+        loginService.authorize(
+            authorizeRequestDTOs.stream().map(AuthorizeRequestDTO::jwt).toList());
+
+    return ResponseEntity.ok(results);
+  }
 }
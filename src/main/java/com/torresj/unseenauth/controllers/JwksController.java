@@ -0,0 +1,47 @@
+package com.torresj.unseenauth.controllers;
+
+import com.torresj.unseenauth.dtos.JwksDTO;
+import com.torresj.unseenauth.services.JwtService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/v1/auth/")
+@Slf4j
+@RequiredArgsConstructor
+public class JwksController {
+
+  private final JwtService jwtService;
+
+  @Operation(summary = "Public keys to verify Unseen JWT tokens locally")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "JSON Web Key Set, empty when tokens are signed with a shared secret",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = JwksDTO.class))
+            })
+      })
+  @GetMapping("/.well-known/jwks.json")
+  public ResponseEntity<JwksDTO> jwks() {
+    log.debug("[JWKS] Getting public keys");
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+        .body(jwtService.getJwks());
+  }
+}
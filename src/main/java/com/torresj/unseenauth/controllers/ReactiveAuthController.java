@@ -0,0 +1,161 @@
+package com.torresj.unseenauth.controllers;
+
+import com.torresj.unseenauth.dtos.*;
+import com.torresj.unseenauth.exceptions.*;
+import com.torresj.unseenauth.services.LoginService;
+import com.torresj.unseenauth.services.ReactiveSocialProfileClient;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Reactive variant of AuthController, with the same requests, responses and errors. Social logins
+ * wait for the provider without holding a thread. The user repositories are blocking, so everything
+ * that reaches the database runs on the bounded elastic scheduler, never on the event loop.
+ */
+@RestController
+@RequestMapping("/v1/auth/")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveAuthController {
+
+  private final LoginService loginService;
+  private final ReactiveSocialProfileClient reactiveSocialProfileClient;
+  private final int maxBatchSize;
+
+  public ReactiveAuthController(
+      LoginService loginService,
+      ReactiveSocialProfileClient reactiveSocialProfileClient,
+      @Value("${jwt.batch.max-size:100}") int maxBatchSize) {
+    this.loginService = loginService;
+    this.reactiveSocialProfileClient = reactiveSocialProfileClient;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  @PostMapping("/login")
+  public Mono<ResponseEntity<LoginResponseDTO>> login(@RequestBody UnseenLoginDTO unseenLoginDTO) {
+    log.info("[UNSEEN LOGIN] Login for user " + unseenLoginDTO.email());
+    return blocking(() -> loginService.unseenLogin(unseenLoginDTO))
+        .map(ResponseEntity::ok)
+        .onErrorMap(exception -> unauthorized("[UNSEEN LOGIN]", exception));
+  }
+
+  @PostMapping("/social/login")
+  public Mono<ResponseEntity<LoginResponseDTO>> socialLogin(
+      @RequestBody AuthSocialTokenDTO authSocialTokenDTO) {
+    log.info("[SOCIAL LOGIN] Social Login for " + authSocialTokenDTO.provider().name());
+    return reactiveSocialProfileClient
+        .getProfile(authSocialTokenDTO.provider(), authSocialTokenDTO.token())
+        .flatMap(profile -> blocking(() -> loginService.socialLogin(authSocialTokenDTO, profile)))
+        .map(ResponseEntity::ok)
+        .onErrorMap(exception -> unauthorized("[SOCIAL LOGIN]", exception));
+  }
+
+  @PostMapping("/dashboard/login")
+  public Mono<ResponseEntity<LoginResponseDTO>> dashboardLogin(
+      @RequestBody UnseenLoginDTO unseenLoginDTO) {
+    log.info("[UNSEEN DASHBOARD LOGIN] Login for user " + unseenLoginDTO.email());
+    return blocking(() -> loginService.dashboardLogin(unseenLoginDTO))
+        .map(ResponseEntity::ok)
+        .onErrorMap(exception -> unauthorized("[UNSEEN DASHBOARD LOGIN]", exception));
+  }
+
+  // Validation is CPU only, it runs on the calling thread
+  @PostMapping("/authorize")
+  public Mono<ResponseEntity<AuthorizeResponseDTO>> authorize(
+      @RequestBody AuthorizeRequestDTO authorizeRequestDTO) {
+    log.info("[UNSEEN AUTHORIZE] validating jwt " + authorizeRequestDTO.jwt());
+    return Mono.fromCallable(() -> loginService.authorize(authorizeRequestDTO.jwt()))
+        .map(ResponseEntity::ok)
+        .onErrorMap(exception -> unauthorized("[UNSEEN AUTHORIZE]", exception));
+  }
+
+  @PostMapping("/revoke")
+  public Mono<ResponseEntity<Void>> revoke(@RequestBody AuthorizeRequestDTO authorizeRequestDTO) {
+    if (!loginService.isRevocationEnabled())
+      return Mono.error(notImplemented("[UNSEEN REVOKE]", "Token revocation is disabled"));
+
+    log.info("[UNSEEN REVOKE] revoking jwt " + authorizeRequestDTO.jwt());
+    return blocking(
+            () -> {
+              loginService.revoke(authorizeRequestDTO.jwt());
+              return ResponseEntity.noContent().<Void>build();
+            })
+        .onErrorMap(exception -> unauthorized("[UNSEEN REVOKE]", exception));
+  }
+
+  @PostMapping("/refresh")
+  public Mono<ResponseEntity<LoginResponseDTO>> refresh(
+      @RequestBody RefreshRequestDTO refreshRequestDTO) {
+    if (!loginService.isRefreshEnabled())
+      return Mono.error(notImplemented("[UNSEEN REFRESH]", "Refresh tokens are disabled"));
+
+    log.info("[UNSEEN REFRESH] Refreshing jwt");
+    return blocking(() -> loginService.refresh(refreshRequestDTO.refreshToken()))
+        .map(ResponseEntity::ok)
+        .onErrorMap(exception -> unauthorized("[UNSEEN REFRESH]", exception));
+  }
+
+  // Large batches are validated in parallel, off the event loop
+  @PostMapping("/authorize/batch")
+  public Mono<ResponseEntity<List<AuthorizeResultDTO>>> authorizeBatch(
+      @RequestBody List<AuthorizeRequestDTO> authorizeRequestDTOs) {
+    log.info("[UNSEEN AUTHORIZE BATCH] validating " + authorizeRequestDTOs.size() + " jwts");
+
+    if (authorizeRequestDTOs.size() > maxBatchSize) {
+      log.warn("[UNSEEN AUTHORIZE BATCH] Batch too large");
+      return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch too large"));
+    }
+
+    return Mono.fromCallable(
+            () ->
+                loginService.authorize(
+                    authorizeRequestDTOs.stream().map(AuthorizeRequestDTO::jwt).toList()))
+        .subscribeOn(Schedulers.parallel())
+        .map(ResponseEntity::ok);
+  }
+
+  private static <T> Mono<T> blocking(Callable<T> call) {
+    return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+  }
+
+  private static ResponseStatusException notImplemented(String prefix, String reason) {
+    log.warn(prefix + " " + reason);
+    return new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, reason);
+  }
+
+  // Same reasons as AuthController
+  private static Throwable unauthorized(String prefix, Throwable exception) {
+    String reason;
+    if (exception instanceof UserNotFoundException || exception instanceof InvalidPasswordException)
+      reason = "Invalid credentials";
+    else if (exception instanceof UserInOtherProviderException) reason = "Wrong provider";
+    else if (exception instanceof UserNotValidatedException) reason = "User not validated";
+    else if (exception instanceof NonceAlreadyUsedException) reason = "Nonce already used";
+    else if (exception instanceof UserNotAnAdminException) reason = "User is not Admin";
+    else if (exception instanceof SocialAPIException)
+      reason = "Error with Social provider API server";
+    else if (exception instanceof ProviderImplementationNotFoundException)
+      reason = "Provider has not implementation yet";
+    else if (exception instanceof JwtException
+        || exception instanceof InvalidAccessTokenException
+        || exception instanceof InvalidRefreshTokenException) reason = exception.getMessage();
+    else return exception;
+
+    log.warn(prefix + " " + reason);
+    return new ResponseStatusException(HttpStatus.UNAUTHORIZED, reason);
+  }
+}
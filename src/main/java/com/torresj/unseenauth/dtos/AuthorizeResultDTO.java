@@ -0,0 +1,5 @@
+package com.torresj.unseenauth.dtos;
+
+import com.torresj.unseen.entities.Role;
+
+public record AuthorizeResultDTO(boolean valid, String email, Role role, String reason) {}
@@ -0,0 +1,15 @@
+package com.torresj.unseenauth.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record JwkDTO(
+    String kty,
+    String use,
+    String alg,
+    String kid,
+    String n,
+    String e,
+    String crv,
+    String x,
+    String y) {}
@@ -0,0 +1,5 @@
+package com.torresj.unseenauth.dtos;
+
+import java.util.List;
+
+public record JwksDTO(List<JwkDTO> keys) {}
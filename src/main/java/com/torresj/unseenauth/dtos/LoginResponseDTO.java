@@ -1,4 +1,10 @@
 package com.torresj.unseenauth.dtos;
 
-public record LoginResponseDTO(String jwt, String email) {
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LoginResponseDTO(String jwt, String email, String refreshToken) {
+  public LoginResponseDTO(String jwt, String email) {
+    this(jwt, email, null);
+  }
 }
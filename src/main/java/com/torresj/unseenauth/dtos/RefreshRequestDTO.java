@@ -0,0 +1,4 @@
+package com.torresj.unseenauth.dtos;
+
+public record RefreshRequestDTO(String refreshToken) {
+}
@@ -0,0 +1,7 @@
+package com.torresj.unseenauth.dtos;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+
+public record RefreshedTokenDTO(
+    String refreshToken, String email, AuthProvider provider, Role role) {}
@@ -0,0 +1,6 @@
+package com.torresj.unseenauth.dtos;
+
+import com.torresj.unseen.entities.Role;
+
+/** Result of a social sign in, with the role its JWT was issued for */
+public record SocialLoginDTO(String jwt, String email, Role role) {}
@@ -0,0 +1,3 @@
+package com.torresj.unseenauth.dtos;
+
+public record SocialProfileDTO(String email, String name, String photoUrl) {}
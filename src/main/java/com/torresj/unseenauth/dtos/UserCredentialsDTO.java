@@ -0,0 +1,27 @@
+package com.torresj.unseenauth.dtos;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+
+/** The fields of a user needed to check its credentials on login */
+public record UserCredentialsDTO(
+    Long id,
+    String email,
+    String password,
+    Role role,
+    AuthProvider provider,
+    boolean validated,
+    long nonce) {
+
+  public static UserCredentialsDTO from(UserEntity user) {
+    return new UserCredentialsDTO(
+        user.getId(),
+        user.getEmail(),
+        user.getPassword(),
+        user.getRole(),
+        user.getProvider(),
+        user.isValidated(),
+        user.getNonce());
+  }
+}
@@ -0,0 +1,3 @@
+package com.torresj.unseenauth.dtos;
+
+public record VerifiedJwtDTO(AuthorizeResponseDTO authorization, long expiresAt, String jti) {}
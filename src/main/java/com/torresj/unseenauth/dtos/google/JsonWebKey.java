@@ -0,0 +1,18 @@
+package com.torresj.unseenauth.dtos.google;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JsonWebKey {
+  private String kid;
+  private String kty;
+  private String alg;
+  private String n;
+  private String e;
+}
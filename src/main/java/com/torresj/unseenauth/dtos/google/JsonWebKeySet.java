@@ -0,0 +1,16 @@
+package com.torresj.unseenauth.dtos.google;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class JsonWebKeySet {
+  private List<JsonWebKey> keys;
+}
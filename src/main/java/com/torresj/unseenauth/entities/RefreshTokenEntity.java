@@ -0,0 +1,48 @@
+package com.torresj.unseenauth.entities;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "refresh_tokens", indexes = @Index(columnList = "family"))
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenEntity {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  // SHA-256 of the token, the token itself is never stored
+  @Column(nullable = false, unique = true, length = 32)
+  private byte[] tokenHash;
+
+  @Column(nullable = false, length = 36)
+  private String family;
+
+  @Column(nullable = false)
+  private String email;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private AuthProvider provider;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private Role role;
+
+  @Column(nullable = false)
+  private Instant expiresAt;
+
+  // Expiration of the login that started the family, rotations never extend past it
+  @Column(nullable = false)
+  private Instant familyExpiresAt;
+
+  private boolean used;
+}
@@ -0,0 +1,28 @@
+package com.torresj.unseenauth.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "revoked_tokens")
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedTokenEntity {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false, unique = true, length = 64)
+  private String jti;
+
+  @Column(nullable = false)
+  private Instant expiresAt;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+}
@@ -0,0 +1,7 @@
+package com.torresj.unseenauth.exceptions;
+
+public class InvalidRefreshTokenException extends Exception {
+  public InvalidRefreshTokenException() {
+    super("Invalid refresh token");
+  }
+}
@@ -0,0 +1,9 @@
+package com.torresj.unseenauth.exceptions;
+
+import io.jsonwebtoken.JwtException;
+
+public class RevokedTokenException extends JwtException {
+  public RevokedTokenException() {
+    super("JWT has been revoked");
+  }
+}
@@ -0,0 +1,32 @@
+package com.torresj.unseenauth.repositories.mutations;
+
+import com.torresj.unseenauth.entities.RefreshTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface RefreshTokenMutationRepository extends JpaRepository<RefreshTokenEntity, Long> {
+
+  Optional<RefreshTokenEntity> findByTokenHash(byte[] tokenHash);
+
+  /**
+   * @return 1 if the token was unused and is now used, 0 if it had already been used
+   */
+  @Modifying
+  @Transactional
+  @Query("update RefreshTokenEntity t set t.used = true where t.id = :id and t.used = false")
+  int markUsed(@Param("id") long id);
+
+  @Modifying
+  @Transactional
+  long deleteByFamily(String family);
+
+  @Modifying
+  @Transactional
+  long deleteByExpiresAtBefore(Instant now);
+}
@@ -0,0 +1,23 @@
+package com.torresj.unseenauth.repositories.mutations;
+
+import com.torresj.unseenauth.entities.RevokedTokenEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface RevokedTokenMutationRepository extends JpaRepository<RevokedTokenEntity, Long> {
+
+  List<RevokedTokenEntity> findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+      long id, Instant now, Pageable pageable);
+
+  List<RevokedTokenEntity> findByCreatedAtAfterAndExpiresAtAfterOrderByCreatedAtAscIdAsc(
+      Instant createdAt, Instant now, Pageable pageable);
+
+  @Modifying
+  @Transactional
+  long deleteByExpiresAtBefore(Instant now);
+}
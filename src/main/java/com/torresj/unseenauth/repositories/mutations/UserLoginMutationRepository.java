@@ -0,0 +1,34 @@
+package com.torresj.unseenauth.repositories.mutations;
+
+import com.torresj.unseen.entities.UserEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface UserLoginMutationRepository extends Repository<UserEntity, Long> {
+
+  /**
+   * Counts a login and consumes its nonce, only if the nonce is greater than the stored one
+   *
+   * @return 1 if the login was registered, 0 if the nonce had already been used
+   */
+  @Modifying
+  @Transactional
+  @Query(
+      "update UserEntity u set u.numLogins = u.numLogins + 1, u.nonce = :nonce"
+          + " where u.id = :id and u.nonce < :nonce")
+  int registerLogin(@Param("id") long id, @Param("nonce") long nonce);
+
+  /**
+   * Consumes a login nonce, only if it is greater than the stored one. The login count is updated
+   * apart by LoginCountWriter.
+   *
+   * @return 1 if the nonce was consumed, 0 if it had already been used
+   */
+  @Modifying
+  @Transactional
+  @Query("update UserEntity u set u.nonce = :nonce where u.id = :id and u.nonce < :nonce")
+  int consumeNonce(@Param("id") long id, @Param("nonce") long nonce);
+}
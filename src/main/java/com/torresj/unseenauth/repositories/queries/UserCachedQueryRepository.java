@@ -0,0 +1,34 @@
+package com.torresj.unseenauth.repositories.queries;
+
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenauth.config.UserCacheConfig;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Users through the second level cache, when UserCacheConfig enables it. A user is found by email
+ * as by a natural id: the id of the email comes from the query cache, which does not change, and
+ * the user from its entity region, which is refreshed user by user on writes.
+ */
+public interface UserCachedQueryRepository extends Repository<UserEntity, Long> {
+
+  /** Not cached, for emails that may not exist yet */
+  @Query("select u.id from UserEntity u where u.email = :email")
+  Optional<Long> findIdByEmail(@Param("email") String email);
+
+  /** Cached, only for emails found before, so a not found result is never cached */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = UserCacheConfig.EMAIL_REGION)
+  })
+  @Query("select u.id from UserEntity u where u.email = :email")
+  Optional<Long> findCachedIdByEmail(@Param("email") String email);
+
+  Optional<UserEntity> findById(Long id);
+}
@@ -0,0 +1,21 @@
+package com.torresj.unseenauth.repositories.queries;
+
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenauth.dtos.UserCredentialsDTO;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Read only access to user credentials. Results are built from the selected columns, so no entity
+ * is hydrated or kept in the persistence context
+ */
+public interface UserCredentialsQueryRepository extends Repository<UserEntity, Long> {
+
+  @Query(
+      "select new com.torresj.unseenauth.dtos.UserCredentialsDTO(u.id, u.email, u.password,"
+          + " u.role, u.provider, u.validated, u.nonce) from UserEntity u where u.email = :email")
+  Optional<UserCredentialsDTO> findCredentialsByEmail(@Param("email") String email);
+}
@@ -0,0 +1,19 @@
+package com.torresj.unseenauth.repositories.queries;
+
+import com.torresj.unseen.entities.UserEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+
+/** Read only access to user emails, without loading whole users */
+public interface UserEmailQueryRepository extends Repository<UserEntity, Long> {
+
+  List<UserEmail> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  interface UserEmail {
+    Long getId();
+
+    String getEmail();
+  }
+}
@@ -0,0 +1,58 @@
+package com.torresj.unseenauth.services;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of strings. False positives happen with the configured probability,
+ * false negatives never, and entries can not be removed, so it is rebuilt to forget them.
+ */
+class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final int numBits;
+  private final int numHashes;
+
+  BloomFilter(int expectedInsertions, double falsePositiveProbability) {
+    int n = Math.max(1, expectedInsertions);
+    long m = (long) (-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    this.numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+    this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+    this.bits = new AtomicLongArray((numBits + 63) / 64);
+  }
+
+  void put(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+    for (int i = 0; i < numHashes; i++) {
+      int bit = index(hash1 + i * hash2);
+      long mask = 1L << bit;
+      bits.getAndAccumulate(bit >>> 6, mask, (current, set) -> current | set);
+    }
+  }
+
+  boolean mightContain(String value) {
+    long hash1 = hash(value, 0x9E3779B97F4A7C15L);
+    long hash2 = hash(value, 0xC2B2AE3D27D4EB4FL);
+    for (int i = 0; i < numHashes; i++) {
+      int bit = index(hash1 + i * hash2);
+      if ((bits.get(bit >>> 6) & (1L << bit)) == 0) return false;
+    }
+    return true;
+  }
+
+  private int index(long combinedHash) {
+    return (int) ((combinedHash & Long.MAX_VALUE) % numBits);
+  }
+
+  // 64-bit multiply-xorshift hash over the chars, no allocation
+  private static long hash(String value, long seed) {
+    long hash = seed ^ value.length();
+    for (int i = 0; i < value.length(); i++) {
+      hash = (hash ^ value.charAt(i)) * 0xFF51AFD7ED558CCDL;
+      hash ^= hash >>> 32;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xC4CEB9FE1A85EC53L;
+    return hash ^ (hash >>> 33);
+  }
+}
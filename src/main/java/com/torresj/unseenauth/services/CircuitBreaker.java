@@ -0,0 +1,95 @@
+package com.torresj.unseenauth.services;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. It opens when the failure rate of the last windowSize calls reaches
+ * the threshold, rejects calls while open, and after openDuration lets a single trial call through,
+ * which closes it again or keeps it open.
+ */
+class CircuitBreaker {
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int windowSize;
+  private final int failureRateThreshold;
+  private final long openDuration;
+  private final LongSupplier clock;
+
+  // Outcomes of the last calls, true for failures
+  private final boolean[] outcomes;
+  private int next;
+  private int calls;
+  private int failures;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean trialInProgress;
+
+  CircuitBreaker(int windowSize, int failureRateThreshold, long openDuration) {
+    this(windowSize, failureRateThreshold, openDuration, System::currentTimeMillis);
+  }
+
+  CircuitBreaker(int windowSize, int failureRateThreshold, long openDuration, LongSupplier clock) {
+    this.windowSize = Math.max(1, windowSize);
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDuration = openDuration;
+    this.clock = clock;
+    this.outcomes = new boolean[this.windowSize];
+  }
+
+  /** Returns whether a call is allowed now, every allowed call must report its outcome */
+  synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      if (clock.getAsLong() - openedAt < openDuration) return false;
+      state = State.HALF_OPEN;
+      trialInProgress = false;
+    }
+    if (state == State.HALF_OPEN) {
+      if (trialInProgress) return false;
+      trialInProgress = true;
+    }
+    return true;
+  }
+
+  synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) close();
+    else if (state == State.CLOSED) record(false);
+  }
+
+  synchronized void onFailure() {
+    if (state == State.HALF_OPEN) open();
+    else if (state == State.CLOSED) record(true);
+  }
+
+  synchronized State getState() {
+    return state;
+  }
+
+  private void record(boolean failure) {
+    if (calls == windowSize) {
+      if (outcomes[next]) failures--;
+    } else calls++;
+    outcomes[next] = failure;
+    if (failure) failures++;
+    next = (next + 1) % windowSize;
+
+    if (calls == windowSize && failures * 100 >= failureRateThreshold * calls) open();
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = clock.getAsLong();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    next = 0;
+    calls = 0;
+    failures = 0;
+  }
+}
@@ -1,7 +1,8 @@
 package com.torresj.unseenauth.services;
 
 import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
-import com.torresj.unseenauth.dtos.LoginResponseDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
 import com.torresj.unseenauth.dtos.facebook.FacebookUser;
 import com.torresj.unseenauth.dtos.facebook.Picture;
 import com.torresj.unseen.entities.AuthProvider;
@@ -10,12 +11,17 @@ import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseenauth.exceptions.*;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 @Service("FACEBOOK")
 @Slf4j
 @AllArgsConstructor
@@ -32,29 +38,36 @@ public class FacebookService implements AuthSocialLogin {
   @Value("${social.login.facebook.picture.url}")
   private final String facebookPictureUrl;
 
+  @Qualifier("socialLoginExecutor")
+  private final Executor socialLoginExecutor;
+
+  private final SocialProfileCache socialProfileCache;
+  private final SocialProviderGuard socialProviderGuard;
+  private final SocialRequestHedger socialRequestHedger;
+
   @Override
-  public LoginResponseDTO signIn(AuthSocialTokenDTO authToken)
+  public SocialLoginDTO signIn(AuthSocialTokenDTO authToken)
       throws InvalidAccessTokenException, SocialAPIException, UserInOtherProviderException,
           NonceAlreadyUsedException {
 
     // Check if we have a token
     if (authToken.token().isBlank()) throw new InvalidAccessTokenException();
 
-    // Call to Facebook GraphQL
-    ResponseEntity<FacebookUser> response =
-        restTemplate.exchange(
-            facebookUrl + authToken.token(), HttpMethod.GET, null, FacebookUser.class);
+    // Get profile from Facebook, unless it was fetched for this token moments ago
+    SocialProfileDTO profile =
+        socialProfileCache.get(
+            AuthProvider.FACEBOOK,
+            authToken.token(),
+            token -> socialProviderGuard.get(AuthProvider.FACEBOOK, token, this::getProfile));
 
-    // Check response from Facebook
-    if (response.getStatusCode().value() != 200) throw new SocialAPIException();
-    if (response.getBody() == null) throw new InvalidAccessTokenException();
-
-    // Get picture
-    Picture picture = getPictureInBetterQuality(authToken.token());
+    return signIn(profile, authToken.nonce());
+  }
 
+  @Override
+  public SocialLoginDTO signIn(SocialProfileDTO profile, long nonce)
+      throws UserInOtherProviderException, NonceAlreadyUsedException {
     // Create user
-    UserEntity userFromFacebook =
-        convertFacebookUserToUserEntity(response.getBody(), picture, authToken.nonce());
+    UserEntity userFromFacebook = convertProfileToUserEntity(profile, nonce);
 
     // Get user from DB
     UserEntity userFromDB = null;
@@ -72,13 +85,8 @@ public class FacebookService implements AuthSocialLogin {
         throw new UserInOtherProviderException();
       log.debug(
           "[FACEBOOK SERVICE] user from facebook already exists: " + userFromFacebook.getEmail());
-      if (userFromDB.getNonce() >= authToken.nonce()) throw new NonceAlreadyUsedException();
-      userService.save(
-          userFromDB.toBuilder()
-              .photoUrl(userFromDB.getPhotoUrl())
-              .numLogins(userFromDB.getNumLogins() + 1)
-              .nonce(authToken.nonce())
-              .build());
+      if (userFromDB.getNonce() >= nonce) throw new NonceAlreadyUsedException();
+      if (!userService.registerLogin(userFromDB, nonce)) throw new NonceAlreadyUsedException();
     }
 
     // Email
@@ -88,13 +96,45 @@ public class FacebookService implements AuthSocialLogin {
     String jwt = jwtService.generateJWT(email, AuthProvider.FACEBOOK, Role.USER);
 
     log.debug("[FACEBOOK SERVICE] JWT generated = " + jwt);
-    return new LoginResponseDTO(jwt, email);
+    return new SocialLoginDTO(jwt, email, Role.USER);
   }
 
-  private Picture getPictureInBetterQuality(String token) throws SocialAPIException {
-    ResponseEntity<Picture> response =
-        restTemplate.exchange(facebookPictureUrl + token, HttpMethod.GET, null, Picture.class);
+  private SocialProfileDTO getProfile(String token)
+      throws InvalidAccessTokenException, SocialAPIException {
+    // Call to Facebook GraphQL and get picture at the same time
+    var userRequest =
+        CompletableFuture.supplyAsync(
+            () ->
+                socialRequestHedger.get(
+                    AuthProvider.FACEBOOK,
+                    () ->
+                        restTemplate.exchange(
+                            facebookUrl + token, HttpMethod.GET, null, FacebookUser.class)),
+            socialLoginExecutor);
+    var pictureRequest =
+        CompletableFuture.supplyAsync(
+            () ->
+                socialRequestHedger.get(
+                    AuthProvider.FACEBOOK,
+                    () ->
+                        restTemplate.exchange(
+                            facebookPictureUrl + token, HttpMethod.GET, null, Picture.class)),
+            socialLoginExecutor);
+    ResponseEntity<FacebookUser> response = await(userRequest);
 
+    // Check response from Facebook
+    if (response.getStatusCode().value() != 200) throw new SocialAPIException();
+    if (response.getBody() == null) throw new InvalidAccessTokenException();
+
+    // Get picture
+    Picture picture = getPictureInBetterQuality(await(pictureRequest));
+
+    return new SocialProfileDTO(
+        response.getBody().getEmail(), response.getBody().getName(), picture.getData().getUrl());
+  }
+
+  private Picture getPictureInBetterQuality(ResponseEntity<Picture> response)
+      throws SocialAPIException {
     if (response.getStatusCode().value() != 200 || response.getBody() == null) {
       throw new SocialAPIException();
     } else {
@@ -102,17 +142,22 @@ public class FacebookService implements AuthSocialLogin {
     }
   }
 
-  private UserEntity convertFacebookUserToUserEntity(
-      FacebookUser facebookUser, Picture picture, long nonce) {
-    String email = facebookUser.getEmail();
-    String photo = picture.getData().getUrl();
-    String name = facebookUser.getName();
+  // Rethrows the exception of the request, as it would have been thrown without the executor
+  private static <T> T await(CompletableFuture<T> request) {
+    try {
+      return request.join();
+    } catch (CompletionException exception) {
+      if (exception.getCause() instanceof RuntimeException cause) throw cause;
+      throw exception;
+    }
+  }
 
+  private UserEntity convertProfileToUserEntity(SocialProfileDTO profile, long nonce) {
     return UserEntity.builder()
         .id(null)
-        .name(name)
-        .photoUrl(photo)
-        .email(email)
+        .name(profile.name())
+        .photoUrl(profile.photoUrl())
+        .email(profile.email())
         .validated(true)
         .role(Role.USER)
         .provider(AuthProvider.FACEBOOK)
@@ -0,0 +1,222 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenauth.dtos.AuthorizeResponseDTO;
+import com.torresj.unseenauth.dtos.VerifiedJwtDTO;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Verifier for the tokens issued by JwtService. It only understands the exact shape we generate
+ * (HMAC header, flat claims object without escapes) and returns null for anything else, so the
+ * caller can fall back to the full jjwt parser, which keeps the error semantics.
+ */
+class FastJwtVerifier {
+
+  private static final byte[] SUB = bytes("sub");
+  private static final byte[] ROLE = bytes("role");
+  private static final byte[] EXP = bytes("exp");
+  private static final byte[] ISS = bytes("iss");
+  private static final byte[] NBF = bytes("nbf");
+  private static final byte[] JTI = bytes("jti");
+  private static final Role[] ROLES = Role.values();
+  private static final byte[][] ROLE_NAMES =
+      Arrays.stream(ROLES).map(role -> bytes(role.name())).toArray(byte[][]::new);
+
+  private final byte[] expectedHeader;
+  private final byte[] issuer;
+  private final ThreadLocal<MacHolder> macs;
+
+  /**
+   * @param expectedHeader encoded header of the tokens we sign with this key
+   */
+  FastJwtVerifier(SecretKey key, String expectedHeader, String issuer) {
+    this.expectedHeader = bytes(expectedHeader);
+    this.issuer = bytes(issuer);
+    this.macs = ThreadLocal.withInitial(() -> new MacHolder(key));
+  }
+
+  /**
+   * @return the authorization data, expiration and id if the token is one of ours, correctly signed
+   *     and not expired; null otherwise
+   */
+  VerifiedJwtDTO verify(String token) {
+    try {
+      byte[] raw = token.getBytes(StandardCharsets.US_ASCII);
+      int firstDot = indexOf(raw, (byte) '.', 0);
+      int secondDot = firstDot < 0 ? -1 : indexOf(raw, (byte) '.', firstDot + 1);
+      if (secondDot < 0 || indexOf(raw, (byte) '.', secondDot + 1) >= 0) return null;
+
+      // Header
+      if (!Arrays.equals(raw, 0, firstDot, expectedHeader, 0, expectedHeader.length)) return null;
+
+      // Signature
+      MacHolder holder = macs.get();
+      holder.mac.update(raw, 0, secondDot);
+      holder.mac.doFinal(holder.buffer, 0);
+      ByteBuffer signature =
+          Base64.getUrlDecoder()
+              .decode(ByteBuffer.wrap(raw, secondDot + 1, raw.length - secondDot - 1));
+      if (!constantTimeEquals(holder.buffer, signature.array(), signature.limit())) return null;
+
+      // Claims
+      ByteBuffer payload =
+          Base64.getUrlDecoder()
+              .decode(ByteBuffer.wrap(raw, firstDot + 1, secondDot - firstDot - 1));
+      return scanClaims(payload.array(), payload.limit());
+    } catch (IllegalArgumentException | GeneralSecurityException exception) {
+      return null;
+    }
+  }
+
+  private VerifiedJwtDTO scanClaims(byte[] json, int length) {
+    String subject = null;
+    String jti = null;
+    Role role = null;
+    long exp = -1;
+    boolean issuerMatches = false;
+
+    int i = skipWhitespace(json, 0, length);
+    if (i >= length || json[i] != '{') return null;
+    i = skipWhitespace(json, i + 1, length);
+    if (i < length && json[i] == '}') return null;
+
+    while (i < length) {
+      // Key
+      if (json[i] != '"') return null;
+      int keyStart = i + 1;
+      int keyEnd = endOfString(json, keyStart, length);
+      if (keyEnd < 0) return null;
+      i = skipWhitespace(json, keyEnd + 1, length);
+      if (i >= length || json[i] != ':') return null;
+      i = skipWhitespace(json, i + 1, length);
+      if (i >= length) return null;
+
+      // Value, only strings and integers are expected in our tokens
+      if (json[i] == '"') {
+        int valueStart = i + 1;
+        int valueEnd = endOfString(json, valueStart, length);
+        if (valueEnd < 0) return null;
+        if (isKey(json, keyStart, keyEnd, SUB)) {
+          if (subject != null) return null;
+          subject = new String(json, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+        } else if (isKey(json, keyStart, keyEnd, JTI)) {
+          if (jti != null) return null;
+          jti = new String(json, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+        } else if (isKey(json, keyStart, keyEnd, ROLE)) {
+          if (role != null) return null;
+          role = role(json, valueStart, valueEnd);
+          if (role == null) return null;
+        } else if (isKey(json, keyStart, keyEnd, ISS)) {
+          if (issuerMatches) return null;
+          issuerMatches = Arrays.equals(json, valueStart, valueEnd, issuer, 0, issuer.length);
+          if (!issuerMatches) return null;
+        } else if (isKey(json, keyStart, keyEnd, EXP) || isKey(json, keyStart, keyEnd, NBF)) {
+          return null;
+        }
+        i = valueEnd + 1;
+      } else if (json[i] >= '0' && json[i] <= '9') {
+        long number = 0;
+        while (i < length && json[i] >= '0' && json[i] <= '9') {
+          if (number > (Long.MAX_VALUE - 9) / 10) return null;
+          number = number * 10 + (json[i++] - '0');
+        }
+        if (isKey(json, keyStart, keyEnd, EXP)) {
+          if (exp >= 0) return null;
+          exp = number;
+        } else if (isKey(json, keyStart, keyEnd, NBF)
+            || isKey(json, keyStart, keyEnd, SUB)
+            || isKey(json, keyStart, keyEnd, ROLE)
+            || isKey(json, keyStart, keyEnd, ISS)
+            || isKey(json, keyStart, keyEnd, JTI)) {
+          return null;
+        }
+      } else {
+        return null;
+      }
+
+      i = skipWhitespace(json, i, length);
+      if (i >= length) return null;
+      if (json[i] == '}') {
+        if (skipWhitespace(json, i + 1, length) != length) return null;
+        break;
+      }
+      if (json[i] != ',') return null;
+      i = skipWhitespace(json, i + 1, length);
+    }
+
+    if (subject == null || role == null || !issuerMatches) return null;
+    if (exp < 0 || exp > Long.MAX_VALUE / 1000) return null;
+    if (System.currentTimeMillis() > exp * 1000) return null;
+    return new VerifiedJwtDTO(new AuthorizeResponseDTO(subject, role), exp * 1000, jti);
+  }
+
+  private static Role role(byte[] json, int start, int end) {
+    for (int r = 0; r < ROLE_NAMES.length; r++) {
+      if (Arrays.equals(json, start, end, ROLE_NAMES[r], 0, ROLE_NAMES[r].length)) return ROLES[r];
+    }
+    return null;
+  }
+
+  private static boolean isKey(byte[] json, int start, int end, byte[] key) {
+    return Arrays.equals(json, start, end, key, 0, key.length);
+  }
+
+  // Returns the index of the closing quote, or -1 for unterminated or escaped strings
+  private static int endOfString(byte[] json, int from, int length) {
+    for (int i = from; i < length; i++) {
+      if (json[i] == '"') return i;
+      if (json[i] == '\\') return -1;
+    }
+    return -1;
+  }
+
+  private static int skipWhitespace(byte[] json, int from, int length) {
+    int i = from;
+    while (i < length && (json[i] == ' ' || json[i] == '\t' || json[i] == '\n' || json[i] == '\r'))
+      i++;
+    return i;
+  }
+
+  // Compares every byte regardless of where the first difference is
+  private static boolean constantTimeEquals(byte[] expected, byte[] actual, int actualLength) {
+    if (expected.length != actualLength) return false;
+    int result = 0;
+    for (int i = 0; i < expected.length; i++) {
+      result |= expected[i] ^ actual[i];
+    }
+    return result == 0;
+  }
+
+  private static int indexOf(byte[] raw, byte value, int from) {
+    for (int i = from; i < raw.length; i++) {
+      if (raw[i] == value) return i;
+    }
+    return -1;
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static class MacHolder {
+    private final Mac mac;
+    private final byte[] buffer;
+
+    private MacHolder(SecretKey key) {
+      try {
+        this.mac = Mac.getInstance(key.getAlgorithm());
+        this.mac.init(key);
+        this.buffer = new byte[mac.getMacLength()];
+      } catch (GeneralSecurityException exception) {
+        throw new IllegalStateException(exception);
+      }
+    }
+  }
+}
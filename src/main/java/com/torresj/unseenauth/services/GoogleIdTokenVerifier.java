@@ -0,0 +1,198 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.dtos.google.JsonWebKey;
+import com.torresj.unseenauth.dtos.google.JsonWebKeySet;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Verifies Google OpenID ID tokens locally, so Google logins need no call to the People API. The
+ * signing keys are loaded from Google's JWKS endpoint at startup and reloaded in the background
+ * when they expire, as told by its Cache-Control header. A token signed with an unknown key reloads
+ * them on the spot, at most once per check interval, in case Google rotated its keys in between.
+ * Concurrent tokens with unknown keys wait for that one reload, so they can not force more calls.
+ */
+@Component
+@Slf4j
+public class GoogleIdTokenVerifier {
+
+  private static final Set<String> ISSUERS =
+      Set.of("accounts.google.com", "https://accounts.google.com");
+  private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+  private static final long DEFAULT_MAX_AGE = 3600000;
+
+  private final RestTemplate restTemplate;
+  private final boolean enabled;
+  private final String keysUrl;
+  private final long checkInterval;
+  private final JwtParser parser;
+
+  // A lock and not synchronized, keys are loaded over HTTP and maybe from a virtual thread
+  private final ReentrantLock loadLock = new ReentrantLock();
+  private volatile Map<String, PublicKey> keys = Map.of();
+  private volatile long expiresAt = 0;
+  private volatile long loadedAt = 0;
+
+  public GoogleIdTokenVerifier(
+      RestTemplate restTemplate,
+      @Value("${social.login.google.id-token.enabled:false}") boolean enabled,
+      @Value("${social.login.google.id-token.client-id:}") String clientId,
+      @Value("${social.login.google.id-token.keys-url:https://www.googleapis.com/oauth2/v3/certs}")
+          String keysUrl,
+      @Value("${social.login.google.id-token.check-interval:60000}") long checkInterval) {
+    if (enabled && clientId.isBlank())
+      throw new IllegalStateException("Google ID token client id is not configured");
+
+    this.restTemplate = restTemplate;
+    this.enabled = enabled;
+    this.keysUrl = keysUrl;
+    this.checkInterval = checkInterval;
+    this.parser =
+        Jwts.parserBuilder()
+            .requireAudience(clientId)
+            .setAllowedClockSkewSeconds(30)
+            .setSigningKeyResolver(
+                new SigningKeyResolverAdapter() {
+                  @Override
+                  public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    return getKey(header.getKeyId());
+                  }
+                })
+            .build();
+  }
+
+  /** Whether Google logins send ID tokens instead of access tokens */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public SocialProfileDTO verify(String idToken) throws InvalidAccessTokenException {
+    Claims claims;
+    try {
+      claims = parser.parseClaimsJws(idToken).getBody();
+    } catch (JwtException | IllegalArgumentException exception) {
+      log.debug("[GOOGLE ID TOKEN] Invalid ID token: " + exception.getMessage());
+      throw new InvalidAccessTokenException();
+    }
+
+    if (!ISSUERS.contains(claims.getIssuer())) throw new InvalidAccessTokenException();
+    String email = claims.get("email", String.class);
+    if (email == null || !Boolean.TRUE.equals(claims.get("email_verified", Boolean.class)))
+      throw new InvalidAccessTokenException();
+
+    return new SocialProfileDTO(
+        email, claims.get("name", String.class), claims.get("picture", String.class));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${social.login.google.id-token.check-interval:60000}",
+      fixedDelayString = "${social.login.google.id-token.check-interval:60000}")
+  public void refresh() {
+    if (!enabled || System.currentTimeMillis() < expiresAt) return;
+
+    loadLock.lock();
+    try {
+      if (System.currentTimeMillis() >= expiresAt) load();
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  private PublicKey getKey(String kid) {
+    PublicKey key = keys.get(kid);
+    if (key == null && System.currentTimeMillis() - loadedAt >= checkInterval) key = reload(kid);
+    if (key == null) throw new JwtException("Unknown signing key " + kid);
+    return key;
+  }
+
+  // Checked again with the lock, the keys may have been reloaded while waiting for it
+  private PublicKey reload(String kid) {
+    loadLock.lock();
+    try {
+      PublicKey key = keys.get(kid);
+      if (key != null || System.currentTimeMillis() - loadedAt < checkInterval) return key;
+
+      log.info("[GOOGLE ID TOKEN] Unknown key " + kid + ", reloading keys");
+      load();
+      return keys.get(kid);
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  private void load() {
+    loadLock.lock();
+    try {
+      long now = System.currentTimeMillis();
+      loadedAt = now;
+      try {
+        ResponseEntity<JsonWebKeySet> response =
+            restTemplate.getForEntity(keysUrl, JsonWebKeySet.class);
+        if (response.getBody() == null || response.getBody().getKeys() == null)
+          throw new RestClientException("Empty key set");
+
+        Map<String, PublicKey> newKeys = new HashMap<>();
+        for (JsonWebKey jwk : response.getBody().getKeys())
+          if ("RSA".equals(jwk.getKty())) newKeys.put(jwk.getKid(), toPublicKey(jwk));
+
+        keys = Map.copyOf(newKeys);
+        expiresAt = now + maxAge(response.getHeaders());
+        log.debug("[GOOGLE ID TOKEN] Loaded " + newKeys.size() + " keys");
+      } catch (RestClientException
+          | GeneralSecurityException
+          | IllegalArgumentException exception) {
+        // Current keys are kept, and loading is retried on the next check
+        log.error("[GOOGLE ID TOKEN] Error loading keys: " + exception.getMessage());
+      }
+    } finally {
+      loadLock.unlock();
+    }
+  }
+
+  private static PublicKey toPublicKey(JsonWebKey jwk) throws GeneralSecurityException {
+    var decoder = Base64.getUrlDecoder();
+    var spec =
+        new RSAPublicKeySpec(
+            new BigInteger(1, decoder.decode(jwk.getN())),
+            new BigInteger(1, decoder.decode(jwk.getE())));
+    return KeyFactory.getInstance("RSA").generatePublic(spec);
+  }
+
+  private static long maxAge(HttpHeaders headers) {
+    String cacheControl = headers.getCacheControl();
+    if (cacheControl == null) return DEFAULT_MAX_AGE;
+    Matcher matcher = MAX_AGE.matcher(cacheControl);
+    return matcher.find() ? Long.parseLong(matcher.group(1)) * 1000 : DEFAULT_MAX_AGE;
+  }
+}
@@ -4,7 +4,8 @@ import com.torresj.unseen.entities.AuthProvider;
 import com.torresj.unseen.entities.Role;
 import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
-import com.torresj.unseenauth.dtos.LoginResponseDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
 import com.torresj.unseenauth.dtos.google.EmailAddress;
 import com.torresj.unseenauth.dtos.google.Name;
 import com.torresj.unseenauth.dtos.google.People;
@@ -34,27 +35,36 @@ public class GoogleService implements AuthSocialLogin {
   @Value("${social.login.google.url}")
   private final String googleUrl;
 
+  private final SocialProfileCache socialProfileCache;
+  private final SocialProviderGuard socialProviderGuard;
+  private final GoogleIdTokenVerifier googleIdTokenVerifier;
+  private final SocialRequestHedger socialRequestHedger;
+
   @Override
-  public LoginResponseDTO signIn(AuthSocialTokenDTO authToken)
+  public SocialLoginDTO signIn(AuthSocialTokenDTO authToken)
       throws InvalidAccessTokenException, SocialAPIException, UserInOtherProviderException,
           NonceAlreadyUsedException {
 
     // Check if we have a token
     if (authToken.token().isBlank()) throw new InvalidAccessTokenException();
 
-    // Call to google people API v1
-    var headers = new HttpHeaders();
-    headers.set("Authorization", "Bearer " + authToken.token());
-    ResponseEntity<People> response =
-        restTemplate.exchange(
-            googleUrl, HttpMethod.GET, new HttpEntity<String>(headers), People.class);
+    // Profile from the ID token, or from google unless fetched for this token moments ago
+    SocialProfileDTO profile =
+        googleIdTokenVerifier.isEnabled()
+            ? googleIdTokenVerifier.verify(authToken.token())
+            : socialProfileCache.get(
+                AuthProvider.GOOGLE,
+                authToken.token(),
+                token -> socialProviderGuard.get(AuthProvider.GOOGLE, token, this::getProfile));
 
-    // Check response from google
-    if (response.getStatusCode().value() != 200) throw new SocialAPIException();
-    if (response.getBody() == null) throw new InvalidAccessTokenException();
+    return signIn(profile, authToken.nonce());
+  }
 
+  @Override
+  public SocialLoginDTO signIn(SocialProfileDTO profile, long nonce)
+      throws UserInOtherProviderException, NonceAlreadyUsedException {
     // Create user
-    UserEntity userFromGoogle = convertPeopleToUserEntity(response.getBody(), authToken.nonce());
+    UserEntity userFromGoogle = convertProfileToUserEntity(profile, nonce);
 
     // Get user from DB
     UserEntity userFromDB = null;
@@ -70,13 +80,8 @@ public class GoogleService implements AuthSocialLogin {
       if (!AuthProvider.GOOGLE.equals(userFromDB.getProvider()))
         throw new UserInOtherProviderException();
       log.debug("[GOOGLE SERVICE] user from google already exists: " + userFromGoogle.getEmail());
-      if (userFromDB.getNonce() >= authToken.nonce()) throw new NonceAlreadyUsedException();
-      userService.save(
-          userFromDB.toBuilder()
-              .photoUrl(userFromDB.getPhotoUrl())
-              .numLogins(userFromDB.getNumLogins() + 1)
-              .nonce(authToken.nonce())
-              .build());
+      if (userFromDB.getNonce() >= nonce) throw new NonceAlreadyUsedException();
+      if (!userService.registerLogin(userFromDB, nonce)) throw new NonceAlreadyUsedException();
     }
 
     // Email
@@ -86,11 +91,29 @@ public class GoogleService implements AuthSocialLogin {
     String jwt = jwtService.generateJWT(email, AuthProvider.GOOGLE, Role.USER);
 
     log.debug("[GOOGLE SERVICE] JWT generated = " + jwt);
-    return new LoginResponseDTO(jwt, email);
+    return new SocialLoginDTO(jwt, email, Role.USER);
   }
 
-  private UserEntity convertPeopleToUserEntity(People people, long nonce)
-      throws SocialAPIException {
+  private SocialProfileDTO getProfile(String token)
+      throws InvalidAccessTokenException, SocialAPIException {
+    // Call to google people API v1
+    var headers = new HttpHeaders();
+    headers.set("Authorization", "Bearer " + token);
+    ResponseEntity<People> response =
+        socialRequestHedger.get(
+            AuthProvider.GOOGLE,
+            () ->
+                restTemplate.exchange(
+                    googleUrl, HttpMethod.GET, new HttpEntity<String>(headers), People.class));
+
+    // Check response from google
+    if (response.getStatusCode().value() != 200) throw new SocialAPIException();
+    if (response.getBody() == null) throw new InvalidAccessTokenException();
+
+    return convertPeopleToProfile(response.getBody());
+  }
+
+  static SocialProfileDTO convertPeopleToProfile(People people) throws SocialAPIException {
     EmailAddress email =
         people.getEmailAddresses().stream()
             .filter(
@@ -118,11 +141,15 @@ public class GoogleService implements AuthSocialLogin {
             .findFirst()
             .orElseThrow(SocialAPIException::new);
 
+    return new SocialProfileDTO(email.getValue(), name.getDisplayName(), photo.getUrl());
+  }
+
+  private UserEntity convertProfileToUserEntity(SocialProfileDTO profile, long nonce) {
     return UserEntity.builder()
         .id(null)
-        .name(name.getDisplayName())
-        .photoUrl(photo.getUrl())
-        .email(email.getValue())
+        .name(profile.name())
+        .photoUrl(profile.photoUrl())
+        .email(profile.email())
         .validated(true)
         .role(Role.USER)
         .provider(AuthProvider.GOOGLE)
@@ -0,0 +1,154 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.config.JwtKeyProperties;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the current JwtKeyRing. Keys come from the jwt.token.* key, which has no kid, plus the
+ * jwt.keys ring. The newest activated key signs, and a key is retired only once the key replacing
+ * it has been active for longer than the token expiration, so every live token stays valid. The
+ * ring is reloaded when configuration changes and rescheduled periodically, without restarts. Keys
+ * without activateAt only sign jwt.keys-activation-delay after this instance first loads them, so
+ * every other instance has reloaded the ring, and verifies them, before the first token is issued.
+ */
+@Component
+@Slf4j
+public class JwtKeyManager {
+
+  private static final String KEYS_PROPERTY = "jwt.keys";
+
+  private final JwtSigningKey defaultKey;
+  private final Duration expiration;
+  private final Duration activationDelay;
+  private final String issuer;
+  private final Environment environment;
+
+  // Keys without activateAt are active once activationDelay has passed since they were first loaded
+  private final Map<String, Instant> firstLoaded = new ConcurrentHashMap<>();
+
+  private volatile List<ScheduledKey> scheduledKeys;
+  private volatile JwtKeyRing keyRing;
+
+  @Autowired
+  public JwtKeyManager(
+      JwtSigningKey jwtSigningKey,
+      @Value("${jwt.token.expiration}") String expiration,
+      @Value("${jwt.token.issuer.info}") String issuer,
+      @Value("${jwt.keys-activation-delay:300000}") long activationDelay,
+      Environment environment) {
+    this.defaultKey = jwtSigningKey;
+    this.expiration = Duration.ofMillis(Long.parseLong(expiration));
+    this.activationDelay = Duration.ofMillis(activationDelay);
+    this.issuer = issuer;
+    this.environment = environment;
+    reload();
+  }
+
+  private JwtKeyManager(JwtSigningKey key, String issuer) {
+    this.defaultKey = key;
+    this.expiration = Duration.ZERO;
+    this.activationDelay = Duration.ZERO;
+    this.issuer = issuer;
+    this.environment = null;
+    this.scheduledKeys = List.of(new ScheduledKey(key, Instant.EPOCH));
+    this.keyRing = JwtKeyRing.single(key, issuer);
+  }
+
+  /** Manager with a single key and no rotation */
+  public static JwtKeyManager fixed(JwtSigningKey key, String issuer) {
+    return new JwtKeyManager(key, issuer);
+  }
+
+  public JwtKeyRing current() {
+    return keyRing;
+  }
+
+  @EventListener(EnvironmentChangeEvent.class)
+  public void onEnvironmentChange(EnvironmentChangeEvent event) {
+    if (event.getKeys().stream().anyMatch(key -> key.startsWith(KEYS_PROPERTY))) {
+      log.info("[JWT KEY MANAGER] Key ring configuration changed, reloading");
+      reload();
+    }
+  }
+
+  public synchronized void reload() {
+    if (environment == null) return;
+    var keys = new ArrayList<ScheduledKey>();
+    keys.add(new ScheduledKey(defaultKey, Instant.EPOCH));
+    Binder.get(environment)
+        .bind(KEYS_PROPERTY, Bindable.listOf(JwtKeyProperties.class))
+        .orElse(List.of())
+        .forEach(properties -> keys.add(toScheduledKey(properties)));
+    keys.sort(Comparator.comparing(ScheduledKey::activateAt));
+    scheduledKeys = List.copyOf(keys);
+    rotate();
+  }
+
+  @Scheduled(fixedDelayString = "${jwt.keys-rotation-check:60000}")
+  public synchronized void rotate() {
+    Instant now = Instant.now();
+    List<ScheduledKey> keys = scheduledKeys;
+
+    // Keys are sorted by activation, the last activated one signs
+    int active = 0;
+    for (int i = 0; i < keys.size(); i++) {
+      if (!keys.get(i).activateAt().isAfter(now)) active = i;
+    }
+
+    // Retired keys are the ones replaced before the oldest token that can still be alive
+    var verificationKeys = new ArrayList<JwtSigningKey>();
+    for (int i = 0; i < keys.size(); i++) {
+      boolean retired = i < active && keys.get(i + 1).activateAt().plus(expiration).isBefore(now);
+      if (!retired) verificationKeys.add(keys.get(i).key());
+    }
+
+    var newKeyRing = new JwtKeyRing(keys.get(active).key(), verificationKeys, issuer);
+    if (!newKeyRing.sameKeys(keyRing)) {
+      log.info(
+          "[JWT KEY MANAGER] Active key "
+              + keys.get(active).key().keyId()
+              + ", "
+              + verificationKeys.size()
+              + " verification keys");
+      keyRing = newKeyRing;
+    }
+  }
+
+  private ScheduledKey toScheduledKey(JwtKeyProperties properties) {
+    if (properties.id() == null || properties.id().isBlank())
+      throw new IllegalStateException("Every key in " + KEYS_PROPERTY + " needs an id");
+    SignatureAlgorithm algorithm =
+        properties.algorithm() != null ? properties.algorithm() : SignatureAlgorithm.HS256;
+    return new ScheduledKey(
+        JwtSigningKey.of(
+            properties.id(),
+            algorithm,
+            properties.secret(),
+            properties.privateKey(),
+            properties.publicKey()),
+        properties.activateAt() != null
+            ? properties.activateAt()
+            : firstLoaded.computeIfAbsent(
+                properties.id(), id -> Instant.now().plus(activationDelay)));
+  }
+
+  private record ScheduledKey(JwtSigningKey key, Instant activateAt) {}
+}
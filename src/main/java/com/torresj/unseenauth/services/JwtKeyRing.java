@@ -0,0 +1,97 @@
+package com.torresj.unseenauth.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable set of keys in use: one active key to sign and every key still valid for verification,
+ * indexed by kid. Tokens without kid are verified with the key that has no kid, if any.
+ */
+public class JwtKeyRing {
+
+  private final JwtSigningKey activeKey;
+  private final Map<String, JwtSigningKey> verificationKeys;
+  private final Map<String, FastJwtVerifier> fastVerifiers;
+  private final JwtParser parser;
+
+  public JwtKeyRing(JwtSigningKey activeKey, List<JwtSigningKey> verificationKeys, String issuer) {
+    this.activeKey = activeKey;
+
+    // HashMap allows the null kid of the legacy key
+    var keys = new HashMap<String, JwtSigningKey>();
+    var verifiers = new HashMap<String, FastJwtVerifier>();
+    keys.put(activeKey.keyId(), activeKey);
+    verificationKeys.forEach(key -> keys.put(key.keyId(), key));
+    keys.values().stream()
+        .filter(key -> key.algorithm().isHmac())
+        .forEach(
+            key -> {
+              String header = header(key);
+              verifiers.put(
+                  header, new FastJwtVerifier((SecretKey) key.signingKey(), header, issuer));
+            });
+    this.verificationKeys = Collections.unmodifiableMap(keys);
+    this.fastVerifiers = Collections.unmodifiableMap(verifiers);
+    this.parser = Jwts.parserBuilder().setSigningKeyResolver(new KeyIdResolver()).build();
+  }
+
+  public static JwtKeyRing single(JwtSigningKey key, String issuer) {
+    return new JwtKeyRing(key, List.of(), issuer);
+  }
+
+  public JwtSigningKey activeKey() {
+    return activeKey;
+  }
+
+  public Collection<JwtSigningKey> verificationKeys() {
+    return verificationKeys.values();
+  }
+
+  public JwtParser parser() {
+    return parser;
+  }
+
+  /**
+   * @return fast verifier for tokens with this encoded header, or null if it is not one of ours
+   */
+  FastJwtVerifier fastVerifier(String token) {
+    int firstDot = token.indexOf('.');
+    return firstDot < 0 ? null : fastVerifiers.get(token.substring(0, firstDot));
+  }
+
+  /** Same keys as other ring, so the parser and verifiers of the other ring can be kept */
+  public boolean sameKeys(JwtKeyRing other) {
+    return other != null
+        && activeKey.equals(other.activeKey)
+        && verificationKeys.equals(other.verificationKeys);
+  }
+
+  // Encoded header of the tokens signed by JwtService with this key
+  private static String header(JwtSigningKey key) {
+    var builder = Jwts.builder();
+    if (key.keyId() != null) builder.setHeaderParam(JwsHeader.KEY_ID, key.keyId());
+    String token = builder.setSubject("").signWith(key.signingKey(), key.algorithm()).compact();
+    return token.substring(0, token.indexOf('.'));
+  }
+
+  private class KeyIdResolver extends SigningKeyResolverAdapter {
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+      JwtSigningKey key = verificationKeys.get(header.getKeyId());
+      if (key == null) throw new SignatureException("Unknown signing key " + header.getKeyId());
+      return key.verificationKey();
+    }
+  }
+}
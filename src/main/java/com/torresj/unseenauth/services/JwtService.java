@@ -3,14 +3,19 @@ package com.torresj.unseenauth.services;
 import com.torresj.unseen.entities.AuthProvider;
 import com.torresj.unseen.entities.Role;
 import com.torresj.unseenauth.dtos.AuthorizeResponseDTO;
+import com.torresj.unseenauth.dtos.JwksDTO;
+import com.torresj.unseenauth.dtos.VerifiedJwtDTO;
+import com.torresj.unseenauth.exceptions.RevokedTokenException;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.UnsupportedJwtException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Objects;
+import java.util.UUID;
 
 @Service
 @Slf4j
@@ -18,44 +23,89 @@ public class JwtService {
 
   private static final String PROVIDER_KEY = "Provider";
   private static final String ROLE_KEY = "role";
-  private final String secret;
-  private final String expiration;
+  private final long expiration;
   private final String prefix;
   private final String issuer;
 
+  // Keys, parser and fast verifiers are built once per key ring, not per call
+  private final JwtKeyManager keyManager;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final RevocationService revocationService;
+
   public JwtService(
-      @Value("${jwt.token.secret}") String secret,
+      JwtKeyManager keyManager,
+      VerifiedTokenCache verifiedTokenCache,
+      RevocationService revocationService,
       @Value("${jwt.token.expiration}") String expiration,
       @Value("${jwt.token.prefix}") String prefix,
       @Value("${jwt.token.issuer.info}") String issuer) {
-    this.secret = secret;
-    this.expiration = expiration;
+    this.expiration = Long.parseLong(expiration);
     this.prefix = prefix;
     this.issuer = issuer;
+    this.keyManager = keyManager;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.revocationService = revocationService;
   }
 
   public String generateJWT(String email, AuthProvider provider, Role role) {
     log.debug("[JWT SERVICE] Generating JWT");
-    return Jwts.builder()
+    var signingKey = keyManager.current().activeKey();
+    var builder = Jwts.builder();
+    if (signingKey.keyId() != null) builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.keyId());
+    return builder
+        .setId(UUID.randomUUID().toString())
         .setIssuedAt(new Date())
         .setIssuer(issuer)
         .setSubject(email)
-        .setExpiration(new Date(System.currentTimeMillis() + Long.parseLong(expiration)))
+        .setExpiration(new Date(System.currentTimeMillis() + expiration))
         .claim(ROLE_KEY, role.name())
         .claim(PROVIDER_KEY, provider.name())
-        .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+        .signWith(signingKey.signingKey(), signingKey.algorithm())
         .compact();
   }
 
   public AuthorizeResponseDTO validateJWT(String jwt) {
-    var claims =
-        Jwts.parserBuilder()
-            .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
-            .build()
-            .parseClaimsJws(jwt.replace(prefix, ""))
-            .getBody();
+    var verified = verifiedTokenCache.get(jwt, this::verifyJWT);
+    if (revocationService.isRevoked(verified.jti())) throw new RevokedTokenException();
+    return verified.authorization();
+  }
+
+  public boolean isRevocationEnabled() {
+    return revocationService.isEnabled();
+  }
+
+  public void revokeJWT(String jwt) {
+    var verified = verifyJWT(jwt);
+    if (verified.jti() == null)
+      throw new UnsupportedJwtException("JWT without id can not be revoked");
+    revocationService.revoke(verified.jti(), verified.expiresAt());
+  }
+
+  public VerifiedJwtDTO verifyJWT(String jwt) {
+    String token = jwt.replace(prefix, "");
+    var keyRing = keyManager.current();
+
+    // Allocation-light path for the HMAC tokens we issue, jjwt parser is used for anything else
+    var fastVerifier = keyRing.fastVerifier(token);
+    if (fastVerifier != null) {
+      var verified = fastVerifier.verify(token);
+      if (verified != null) return verified;
+    }
+
+    var claims = keyRing.parser().parseClaimsJws(token).getBody();
     String email = claims.getSubject();
     String role = (String) claims.get(ROLE_KEY);
-    return new AuthorizeResponseDTO(email, Role.valueOf(role));
+    // Tokens without expiration are never cached
+    long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : 0;
+    return new VerifiedJwtDTO(
+        new AuthorizeResponseDTO(email, Role.valueOf(role)), expiresAt, claims.getId());
+  }
+
+  public JwksDTO getJwks() {
+    return new JwksDTO(
+        keyManager.current().verificationKeys().stream()
+            .map(JwtSigningKey::toJwk)
+            .filter(Objects::nonNull)
+            .toList());
   }
 }
@@ -0,0 +1,141 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.dtos.JwkDTO;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Key used to sign and verify JWTs. HMAC keys use the same secret for both, asymmetric keys sign
+ * with the private key and publish the public one as a JWK so consumers can verify locally.
+ */
+public record JwtSigningKey(
+    String keyId, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+
+  /**
+   * Builds a key from configuration. HMAC algorithms use the secret, asymmetric ones the PEM key
+   * pair, which is required: a generated key would only be known to the pod that generated it.
+   */
+  public static JwtSigningKey of(
+      String keyId,
+      SignatureAlgorithm algorithm,
+      String secret,
+      String privateKey,
+      String publicKey) {
+    if (algorithm == SignatureAlgorithm.NONE)
+      throw new IllegalStateException("Unsigned JWTs are not allowed");
+
+    if (algorithm.isHmac()) return hmac(keyId, secret);
+
+    if (privateKey == null || privateKey.isBlank() || publicKey == null || publicKey.isBlank())
+      throw new IllegalStateException("No PEM key pair for " + algorithm + " key " + keyId);
+    return fromPem(keyId, algorithm, privateKey, publicKey);
+  }
+
+  public static JwtSigningKey hmac(String secret) {
+    return hmac(null, secret);
+  }
+
+  public static JwtSigningKey hmac(String keyId, String secret) {
+    if (secret == null) throw new IllegalStateException("No secret for HMAC key " + keyId);
+    var key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    return new JwtSigningKey(keyId, SignatureAlgorithm.forSigningKey(key), key, key);
+  }
+
+  /** New random key pair, for tests and benchmarks, never for keys from configuration */
+  public static JwtSigningKey generate(String keyId, SignatureAlgorithm algorithm) {
+    KeyPair keyPair = Keys.keyPairFor(algorithm);
+    return new JwtSigningKey(keyId, algorithm, keyPair.getPrivate(), keyPair.getPublic());
+  }
+
+  /**
+   * @param privateKey PKCS#8 private key, PEM or plain base64
+   * @param publicKey X.509 public key, PEM or plain base64
+   */
+  public static JwtSigningKey fromPem(
+      String keyId, SignatureAlgorithm algorithm, String privateKey, String publicKey) {
+    try {
+      var keyFactory = KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC");
+      return new JwtSigningKey(
+          keyId,
+          algorithm,
+          keyFactory.generatePrivate(new PKCS8EncodedKeySpec(decodePem(privateKey))),
+          keyFactory.generatePublic(new X509EncodedKeySpec(decodePem(publicKey))));
+    } catch (GeneralSecurityException | IllegalArgumentException exception) {
+      throw new IllegalStateException("Invalid " + algorithm + " key pair", exception);
+    }
+  }
+
+  public boolean isAsymmetric() {
+    return !algorithm.isHmac();
+  }
+
+  /**
+   * @return public key as a JWK, or null for HMAC keys, which must never be published
+   */
+  public JwkDTO toJwk() {
+    if (verificationKey instanceof RSAPublicKey rsaKey) {
+      return new JwkDTO(
+          "RSA",
+          "sig",
+          algorithm.getValue(),
+          keyId,
+          base64Url(rsaKey.getModulus(), 0),
+          base64Url(rsaKey.getPublicExponent(), 0),
+          null,
+          null,
+          null);
+    }
+    if (verificationKey instanceof ECPublicKey ecKey) {
+      int size = (ecKey.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+      return new JwkDTO(
+          "EC",
+          "sig",
+          algorithm.getValue(),
+          keyId,
+          null,
+          null,
+          curve(algorithm),
+          base64Url(ecKey.getW().getAffineX(), size),
+          base64Url(ecKey.getW().getAffineY(), size));
+    }
+    return null;
+  }
+
+  private static String curve(SignatureAlgorithm algorithm) {
+    return switch (algorithm) {
+      case ES256 -> "P-256";
+      case ES384 -> "P-384";
+      case ES512 -> "P-521";
+      default -> throw new IllegalStateException("Not an EC algorithm " + algorithm);
+    };
+  }
+
+  // Unsigned big-endian bytes, left padded to size when it is greater than 0
+  private static String base64Url(BigInteger value, int size) {
+    byte[] bytes = value.toByteArray();
+    if (bytes.length > 1 && bytes[0] == 0) bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+    if (size > bytes.length) {
+      byte[] padded = new byte[size];
+      System.arraycopy(bytes, 0, padded, size - bytes.length, bytes.length);
+      bytes = padded;
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  private static byte[] decodePem(String pem) {
+    return Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+  }
+}
@@ -0,0 +1,102 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.repositories.queries.UserEmailQueryRepository;
+import com.torresj.unseenauth.repositories.queries.UserEmailQueryRepository.UserEmail;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bloom filter of the emails of every user, so logins with unknown emails are rejected without
+ * querying the database. It is loaded by pages at startup and then synced incrementally by id, to
+ * add users created by other services, and users saved here are added right away. Until the first
+ * load finishes every email might exist. Ids are assigned before commit, so a user committed after
+ * a higher id could be skipped: every sync reads users.filter.sync-overlap ids below the last one
+ * again, and every users.filter.rescan-interval all users are read again.
+ */
+@Component
+@Slf4j
+public class KnownEmailFilter {
+
+  private static final int PAGE_SIZE = 1000;
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private final UserEmailQueryRepository userEmailQueryRepository;
+  private final boolean enabled;
+  private final int syncOverlap;
+  private final BloomFilter filter;
+
+  private volatile boolean loaded = false;
+  private long lastLoadedId = 0;
+
+  public KnownEmailFilter(
+      UserEmailQueryRepository userEmailQueryRepository,
+      @Value("${users.filter.enabled:false}") boolean enabled,
+      @Value("${users.filter.expected-users:1000000}") int expectedUsers,
+      @Value("${users.filter.sync-overlap:1000}") int syncOverlap) {
+    this.userEmailQueryRepository = userEmailQueryRepository;
+    this.enabled = enabled;
+    this.syncOverlap = syncOverlap;
+    this.filter = new BloomFilter(enabled ? expectedUsers : 1, FALSE_POSITIVE_PROBABILITY);
+  }
+
+  /**
+   * @return false only if there is no user with this email
+   */
+  public boolean mightExist(String email) {
+    return !enabled || !loaded || filter.mightContain(normalize(email));
+  }
+
+  public void add(String email) {
+    if (enabled) filter.put(normalize(email));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(
+      initialDelayString = "${users.filter.sync-interval:30000}",
+      fixedDelayString = "${users.filter.sync-interval:30000}")
+  public synchronized void sync() {
+    if (!enabled) return;
+
+    int count = 0;
+    long lastId = Math.max(0, lastLoadedId - syncOverlap);
+    List<UserEmail> page;
+    do {
+      page =
+          userEmailQueryRepository.findByIdGreaterThanOrderByIdAsc(
+              lastId, PageRequest.of(0, PAGE_SIZE));
+      for (UserEmail user : page) {
+        filter.put(normalize(user.getEmail()));
+        lastId = user.getId();
+      }
+      count += page.size();
+    } while (page.size() == PAGE_SIZE);
+    lastLoadedId = Math.max(lastLoadedId, lastId);
+
+    if (!loaded) log.info("[KNOWN EMAIL FILTER] Loaded " + count + " user emails");
+    else if (count > 0) log.debug("[KNOWN EMAIL FILTER] Added " + count + " new user emails");
+    loaded = true;
+  }
+
+  /** Reads all users again, adding the ones committed after a higher id was synced */
+  @Scheduled(
+      initialDelayString = "${users.filter.rescan-interval:3600000}",
+      fixedDelayString = "${users.filter.rescan-interval:3600000}")
+  public synchronized void rescan() {
+    if (!enabled) return;
+
+    lastLoadedId = 0;
+    sync();
+  }
+
+  static String normalize(String email) {
+    return email.trim().toLowerCase(Locale.ROOT);
+  }
+}
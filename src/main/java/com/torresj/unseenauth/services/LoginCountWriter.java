@@ -0,0 +1,123 @@
+package com.torresj.unseenauth.services;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind of login counts. Logins of the same user are added up in memory and written in JDBC
+ * batches to the mutations datasource, when there are batch-size users pending or every
+ * flush-interval, and once more on shutdown. Counts pending when an instance dies are lost, nonces
+ * are never buffered.
+ */
+@Component
+@Slf4j
+public class LoginCountWriter {
+
+  private static final String UPDATE_SQL =
+      "update users set num_logins = num_logins + ? where id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final boolean enabled;
+  private final int batchSize;
+
+  // user id -> logins not written yet
+  private final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+  private final AtomicBoolean flushRequested = new AtomicBoolean();
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "login-count-writer");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Timer flushTimer;
+  private final DistributionSummary batchSizeSummary;
+
+  public LoginCountWriter(
+      JdbcTemplate jdbcTemplate,
+      @Value("${users.login-count.write-behind:false}") boolean enabled,
+      @Value("${users.login-count.batch-size:500}") int batchSize,
+      MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.flushTimer =
+        Timer.builder("users.login-count.flush")
+            .description("Time to write a batch of login counts")
+            .register(meterRegistry);
+    this.batchSizeSummary =
+        DistributionSummary.builder("users.login-count.batch.size")
+            .description("Users updated per batch of login counts")
+            .register(meterRegistry);
+    meterRegistry.gauge("users.login-count.backlog", pending, Map::size);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void increment(long userId) {
+    pending.merge(userId, 1, Integer::sum);
+
+    // Size trigger, the flush runs apart so logins never wait for it
+    if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true))
+      executor.execute(
+          () -> {
+            flushRequested.set(false);
+            flush();
+          });
+  }
+
+  @Scheduled(fixedDelayString = "${users.login-count.flush-interval:1000}")
+  public synchronized void flush() {
+    if (!enabled) return;
+    while (!pending.isEmpty()) {
+      List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+      for (Long userId : pending.keySet()) {
+        Integer count = pending.remove(userId);
+        if (count != null) batch.add(new Object[] {count, userId});
+        if (batch.size() == batchSize) break;
+      }
+      if (batch.isEmpty()) return;
+      if (!write(batch)) return;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    flush();
+  }
+
+  private boolean write(List<Object[]> batch) {
+    try {
+      flushTimer.record(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+      batchSizeSummary.record(batch.size());
+      log.debug("[LOGIN COUNT WRITER] Written logins of " + batch.size() + " users");
+      return true;
+    } catch (RuntimeException exception) {
+      // Counts go back to pending, to be retried on the next flush
+      log.error("[LOGIN COUNT WRITER] Error writing login counts: " + exception.getMessage());
+      batch.forEach(row -> pending.merge((Long) row[1], (Integer) row[0], Integer::sum));
+      return false;
+    }
+  }
+}
@@ -2,26 +2,36 @@ package com.torresj.unseenauth.services;
 
 import com.torresj.unseen.entities.AuthProvider;
 import com.torresj.unseen.entities.Role;
-import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
 import com.torresj.unseenauth.dtos.AuthorizeResponseDTO;
+import com.torresj.unseenauth.dtos.AuthorizeResultDTO;
 import com.torresj.unseenauth.dtos.LoginResponseDTO;
+import com.torresj.unseenauth.dtos.RefreshedTokenDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
 import com.torresj.unseenauth.dtos.UnseenLoginDTO;
+import com.torresj.unseenauth.dtos.UserCredentialsDTO;
 import com.torresj.unseenauth.exceptions.*;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.util.List;
 import java.util.Map;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class LoginService {
+  private static final int PARALLEL_BATCH_THRESHOLD = 32;
+
   private final UserService userService;
   private final JwtService jwtService;
   private final Map<String, AuthSocialLogin> authSocialLoginMap;
+  private final RefreshTokenService refreshTokenService;
+  private final SocialLoginCoalescer socialLoginCoalescer;
 
   public LoginResponseDTO unseenLogin(UnseenLoginDTO unseenLoginDTO)
       throws UserNotFoundException, InvalidPasswordException, UserInOtherProviderException,
@@ -29,16 +39,17 @@ public class LoginService {
 
     // Validating user
     log.debug("[LOGIN SERVICE] Validating user " + unseenLoginDTO.email());
-    UserEntity user = checkUser(unseenLoginDTO, AuthProvider.UNSEEN);
-
-    // generating JWT
-    String jwt = jwtService.generateJWT(user.getEmail(), user.getProvider(), user.getRole());
+    UserCredentialsDTO user = checkUser(unseenLoginDTO, AuthProvider.UNSEEN);
 
     // Updating user
     updateUser(user, unseenLoginDTO.nonce());
 
+    // generating JWT
+    String jwt = jwtService.generateJWT(user.email(), user.provider(), user.role());
+
     log.debug("[LOGIN SERVICE] JWT generated = " + jwt);
-    return new LoginResponseDTO(jwt, user.getEmail());
+    return new LoginResponseDTO(
+        jwt, user.email(), refreshTokenService.issue(user.email(), user.provider(), user.role()));
   }
 
   public LoginResponseDTO dashboardLogin(UnseenLoginDTO unseenLoginDTO)
@@ -47,39 +58,65 @@ public class LoginService {
 
     // Validating user
     log.debug("[LOGIN SERVICE] Validating user " + unseenLoginDTO.email());
-    UserEntity user = checkUser(unseenLoginDTO, AuthProvider.UNSEEN);
+    UserCredentialsDTO user = checkUser(unseenLoginDTO, AuthProvider.UNSEEN);
 
     // Check role
-    if (!user.getRole().equals(Role.ADMIN)) throw new UserNotAnAdminException();
-
-    // generating JWT
-    String jwt = jwtService.generateJWT(user.getEmail(), user.getProvider(), user.getRole());
+    if (!user.role().equals(Role.ADMIN)) throw new UserNotAnAdminException();
 
     // Updating user
     updateUser(user, unseenLoginDTO.nonce());
 
+    // generating JWT
+    String jwt = jwtService.generateJWT(user.email(), user.provider(), user.role());
+
     log.debug("[LOGIN SERVICE] JWT generated = " + jwt);
-    return new LoginResponseDTO(jwt, user.getEmail());
+    return new LoginResponseDTO(
+        jwt, user.email(), refreshTokenService.issue(user.email(), user.provider(), user.role()));
   }
 
   public LoginResponseDTO socialLogin(AuthSocialTokenDTO authToken)
       throws InvalidAccessTokenException, SocialAPIException, NonceAlreadyUsedException,
           UserInOtherProviderException, ProviderImplementationNotFoundException {
     log.debug("[LOGIN SERVICE] Social login for " + authToken.provider().name());
+    AuthSocialLogin autService = getAuthSocialLogin(authToken);
 
-    // Check provider to use the correct auth implementation
-    AuthSocialLogin autService = authSocialLoginMap.get(authToken.provider().name());
-
-    // Check if provider implementation exists
-    if (autService == null) throw new ProviderImplementationNotFoundException();
-
-    // Sign in
+    // Sign in, together with any identical sign in already in progress
+    SocialLoginDTO response;
     try {
-      return autService.signIn(authToken);
+      response = socialLoginCoalescer.signIn(autService, authToken);
     } catch (HttpClientErrorException exception) {
       log.error("[LOGIN SERVICE] Error calling provider server: " + exception.getMessage());
       throw new SocialAPIException();
     }
+
+    return withRefreshToken(response, authToken.provider());
+  }
+
+  /** Social login with the profile already resolved from the provider, by the reactive client */
+  public LoginResponseDTO socialLogin(AuthSocialTokenDTO authToken, SocialProfileDTO profile)
+      throws NonceAlreadyUsedException, UserInOtherProviderException,
+          ProviderImplementationNotFoundException {
+    log.debug("[LOGIN SERVICE] Social login with profile for " + authToken.provider().name());
+    AuthSocialLogin autService = getAuthSocialLogin(authToken);
+
+    SocialLoginDTO response = autService.signIn(profile, authToken.nonce());
+
+    return withRefreshToken(response, authToken.provider());
+  }
+
+  public boolean isRefreshEnabled() {
+    return refreshTokenService.isEnabled();
+  }
+
+  public LoginResponseDTO refresh(String refreshToken) throws InvalidRefreshTokenException {
+    log.debug("[LOGIN SERVICE] Refreshing JWT");
+    RefreshedTokenDTO refreshed = refreshTokenService.rotate(refreshToken);
+
+    // generating JWT
+    String jwt = jwtService.generateJWT(refreshed.email(), refreshed.provider(), refreshed.role());
+
+    log.debug("[LOGIN SERVICE] JWT generated = " + jwt);
+    return new LoginResponseDTO(jwt, refreshed.email(), refreshed.refreshToken());
   }
 
   public AuthorizeResponseDTO authorize(String jwt) {
@@ -87,25 +124,67 @@ public class LoginService {
     return jwtService.validateJWT(jwt);
   }
 
-  private UserEntity checkUser(UnseenLoginDTO unseenLoginDTO, AuthProvider provider)
+  public boolean isRevocationEnabled() {
+    return jwtService.isRevocationEnabled();
+  }
+
+  public void revoke(String jwt) {
+    log.debug("[LOGIN SERVICE] Revoking JWT = " + jwt);
+    jwtService.revokeJWT(jwt);
+  }
+
+  public List<AuthorizeResultDTO> authorize(List<String> jwts) {
+    log.debug("[LOGIN SERVICE] Validating " + jwts.size() + " JWTs");
+
+    // Small batches are not worth the fork/join overhead
+    var stream = jwts.size() >= PARALLEL_BATCH_THRESHOLD ? jwts.parallelStream() : jwts.stream();
+    return stream.map(this::authorizeResult).toList();
+  }
+
+  private AuthorizeResultDTO authorizeResult(String jwt) {
+    try {
+      var authorization = authorize(jwt);
+      return new AuthorizeResultDTO(true, authorization.email(), authorization.role(), null);
+    } catch (JwtException | IllegalArgumentException exception) {
+      return new AuthorizeResultDTO(false, null, null, exception.getMessage());
+    }
+  }
+
+  private AuthSocialLogin getAuthSocialLogin(AuthSocialTokenDTO authToken)
+      throws ProviderImplementationNotFoundException {
+    // Check provider to use the correct auth implementation
+    AuthSocialLogin autService = authSocialLoginMap.get(authToken.provider().name());
+
+    // Check if provider implementation exists
+    if (autService == null) throw new ProviderImplementationNotFoundException();
+    return autService;
+  }
+
+  // Each coalesced sign in gets its own refresh token
+  private LoginResponseDTO withRefreshToken(SocialLoginDTO response, AuthProvider provider) {
+    return new LoginResponseDTO(
+        response.jwt(),
+        response.email(),
+        refreshTokenService.issue(response.email(), provider, response.role()));
+  }
+
+  private UserCredentialsDTO checkUser(UnseenLoginDTO unseenLoginDTO, AuthProvider provider)
       throws UserNotValidatedException, InvalidPasswordException, UserInOtherProviderException,
           NonceAlreadyUsedException, UserNotFoundException {
-    // Getting user
-    UserEntity user = userService.get(unseenLoginDTO.email());
+    // Getting user credentials, the rest of the user is not needed
+    UserCredentialsDTO user = userService.getCredentials(unseenLoginDTO.email());
 
     // Validating user
-    if (!user.isValidated()) throw new UserNotValidatedException();
-    if (!user.getPassword().equals(unseenLoginDTO.password())) throw new InvalidPasswordException();
-    if (!user.getProvider().equals(provider)) throw new UserInOtherProviderException();
-    if (user.getNonce() >= unseenLoginDTO.nonce()) throw new NonceAlreadyUsedException();
+    if (!user.validated()) throw new UserNotValidatedException();
+    if (!user.password().equals(unseenLoginDTO.password())) throw new InvalidPasswordException();
+    if (!user.provider().equals(provider)) throw new UserInOtherProviderException();
+    if (user.nonce() >= unseenLoginDTO.nonce()) throw new NonceAlreadyUsedException();
 
     return user;
   }
 
-  private void updateUser(UserEntity user, long nonce) {
-    // Updating user
-    user.setNumLogins(user.getNumLogins() + 1);
-    user.setNonce(nonce);
-    userService.save(user);
+  private void updateUser(UserCredentialsDTO user, long nonce) throws NonceAlreadyUsedException {
+    // Another login may have used the nonce since the user was read
+    if (!userService.registerLogin(user, nonce)) throw new NonceAlreadyUsedException();
   }
 }
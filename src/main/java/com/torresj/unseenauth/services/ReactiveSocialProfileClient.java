@@ -0,0 +1,117 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.dtos.facebook.FacebookUser;
+import com.torresj.unseenauth.dtos.facebook.Picture;
+import com.torresj.unseenauth.dtos.google.People;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import com.torresj.unseenauth.exceptions.ProviderImplementationNotFoundException;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.CodecException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking counterpart of the profile calls in GoogleService and FacebookService, for the
+ * reactive variant. No thread waits for the provider, and the two Facebook calls run concurrently.
+ * Provider error responses, unreadable bodies, connection errors and timeouts all surface as
+ * SocialAPIException, like in LoginService.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Slf4j
+public class ReactiveSocialProfileClient {
+
+  private final WebClient webClient;
+  private final GoogleIdTokenVerifier googleIdTokenVerifier;
+  private final String googleUrl;
+  private final String facebookUrl;
+  private final String facebookPictureUrl;
+
+  public ReactiveSocialProfileClient(
+      @Qualifier("socialWebClient") WebClient webClient,
+      GoogleIdTokenVerifier googleIdTokenVerifier,
+      @Value("${social.login.google.url}") String googleUrl,
+      @Value("${social.login.facebook.url}") String facebookUrl,
+      @Value("${social.login.facebook.picture.url}") String facebookPictureUrl) {
+    this.webClient = webClient;
+    this.googleIdTokenVerifier = googleIdTokenVerifier;
+    this.googleUrl = googleUrl;
+    this.facebookUrl = facebookUrl;
+    this.facebookPictureUrl = facebookPictureUrl;
+  }
+
+  public Mono<SocialProfileDTO> getProfile(AuthProvider provider, String token) {
+    if (token == null || token.isBlank()) return Mono.error(new InvalidAccessTokenException());
+
+    Mono<SocialProfileDTO> profile;
+    if (provider == AuthProvider.GOOGLE) profile = getGoogleProfile(token);
+    else if (provider == AuthProvider.FACEBOOK) profile = getFacebookProfile(token);
+    else return Mono.error(new ProviderImplementationNotFoundException());
+
+    return profile.onErrorMap(
+        exception ->
+            exception instanceof WebClientException
+                || exception instanceof CodecException
+                || exception instanceof TimeoutException
+                || exception instanceof IOException,
+        exception -> {
+          log.error("[REACTIVE SOCIAL CLIENT] Error calling provider: " + exception.getMessage());
+          return new SocialAPIException();
+        });
+  }
+
+  private Mono<SocialProfileDTO> getGoogleProfile(String token) {
+    // Verifying may reload Google keys over HTTP, so it is kept off the event loop
+    if (googleIdTokenVerifier.isEnabled())
+      return Mono.fromCallable(() -> googleIdTokenVerifier.verify(token))
+          .subscribeOn(Schedulers.boundedElastic());
+
+    return webClient
+        .get()
+        .uri(googleUrl)
+        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+        .retrieve()
+        .bodyToMono(People.class)
+        .switchIfEmpty(Mono.error(InvalidAccessTokenException::new))
+        .flatMap(people -> Mono.fromCallable(() -> GoogleService.convertPeopleToProfile(people)));
+  }
+
+  private Mono<SocialProfileDTO> getFacebookProfile(String token) {
+    // The URLs end with the access_token parameter, the token is added encoded as a variable
+    Mono<FacebookUser> user =
+        webClient
+            .get()
+            .uri(facebookUrl + "{token}", token)
+            .retrieve()
+            .bodyToMono(FacebookUser.class)
+            .switchIfEmpty(Mono.error(InvalidAccessTokenException::new));
+    Mono<Picture> picture =
+        webClient
+            .get()
+            .uri(facebookPictureUrl + "{token}", token)
+            .retrieve()
+            .bodyToMono(Picture.class)
+            .switchIfEmpty(Mono.error(SocialAPIException::new));
+
+    return Mono.zip(user, picture)
+        .map(
+            profile ->
+                new SocialProfileDTO(
+                    profile.getT1().getEmail(),
+                    profile.getT1().getName(),
+                    profile.getT2().getData().getUrl()));
+  }
+}
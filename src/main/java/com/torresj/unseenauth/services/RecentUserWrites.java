@@ -0,0 +1,41 @@
+package com.torresj.unseenauth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseenauth.config.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Emails of the users written by this instance in the last datasource.routing.primary-window
+ * millis. Those users are read from the primary, the replica may not have their last writes yet.
+ */
+@Component
+public class RecentUserWrites {
+
+  private final Cache<String, Boolean> emails;
+
+  public RecentUserWrites(
+      @Value("${datasource.routing.primary-window:5000}") long primaryWindow,
+      @Value("${users.cache.max-size:10000}") long maxSize) {
+    this.emails =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMillis(primaryWindow))
+            .build();
+  }
+
+  public void written(String email) {
+    emails.put(KnownEmailFilter.normalize(email), Boolean.TRUE);
+  }
+
+  public <T> Optional<T> read(String email, Supplier<Optional<T>> query) {
+    return emails.getIfPresent(KnownEmailFilter.normalize(email)) == null
+        ? query.get()
+        : ReplicaRoutingDataSource.readFromPrimary(query);
+  }
+}
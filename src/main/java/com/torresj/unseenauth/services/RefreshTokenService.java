@@ -0,0 +1,123 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenauth.dtos.RefreshedTokenDTO;
+import com.torresj.unseenauth.entities.RefreshTokenEntity;
+import com.torresj.unseenauth.exceptions.InvalidRefreshTokenException;
+import com.torresj.unseenauth.repositories.mutations.RefreshTokenMutationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque refresh tokens. Only their SHA-256 is stored, with everything needed to issue a new JWT,
+ * so a refresh is one indexed lookup and neither the user nor the social provider are queried.
+ * Every refresh rotates the token, and presenting a token that was already rotated drops its whole
+ * family, because either the client or an attacker holds a stolen copy. Rotated tokens expire with
+ * the login that started their family at the latest, so a session can not be refreshed forever.
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+  private static final int TOKEN_BYTES = 32;
+
+  private final RefreshTokenMutationRepository refreshTokenMutationRepository;
+  private final boolean enabled;
+  private final Duration expiration;
+  private final SecureRandom random = new SecureRandom();
+
+  public RefreshTokenService(
+      RefreshTokenMutationRepository refreshTokenMutationRepository,
+      @Value("${jwt.refresh.enabled:false}") boolean enabled,
+      @Value("${jwt.refresh.expiration:2592000000}") long expiration) {
+    this.refreshTokenMutationRepository = refreshTokenMutationRepository;
+    this.enabled = enabled;
+    this.expiration = Duration.ofMillis(expiration);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return new refresh token for a login, or null if refresh tokens are disabled
+   */
+  public String issue(String email, AuthProvider provider, Role role) {
+    if (!enabled) return null;
+    return save(
+        UUID.randomUUID().toString(), Instant.now().plus(expiration), email, provider, role);
+  }
+
+  // Lookup, conditional update and new token are committed together, or not at all
+  @Transactional("mutationsTransactionManager")
+  public RefreshedTokenDTO rotate(String refreshToken) throws InvalidRefreshTokenException {
+    if (!enabled) throw new IllegalStateException("Refresh tokens are disabled");
+    if (refreshToken == null || refreshToken.isBlank()) throw new InvalidRefreshTokenException();
+
+    RefreshTokenEntity token =
+        refreshTokenMutationRepository
+            .findByTokenHash(TokenDigest.sha256(refreshToken))
+            .orElseThrow(InvalidRefreshTokenException::new);
+
+    if (!token.getExpiresAt().isAfter(Instant.now())) throw new InvalidRefreshTokenException();
+
+    // The conditional update makes sure only one of two concurrent refreshes wins
+    if (token.isUsed() || refreshTokenMutationRepository.markUsed(token.getId()) == 0) {
+      log.warn(
+          "[REFRESH TOKEN SERVICE] Refresh token reused, revoking family " + token.getFamily());
+      refreshTokenMutationRepository.deleteByFamily(token.getFamily());
+      throw new InvalidRefreshTokenException();
+    }
+
+    return new RefreshedTokenDTO(
+        save(
+            token.getFamily(),
+            token.getFamilyExpiresAt(),
+            token.getEmail(),
+            token.getProvider(),
+            token.getRole()),
+        token.getEmail(),
+        token.getProvider(),
+        token.getRole());
+  }
+
+  @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval:3600000}")
+  public void purge() {
+    if (!enabled) return;
+    long deleted = refreshTokenMutationRepository.deleteByExpiresAtBefore(Instant.now());
+    log.debug("[REFRESH TOKEN SERVICE] Purged " + deleted + " expired refresh tokens");
+  }
+
+  private String save(
+      String family, Instant familyExpiresAt, String email, AuthProvider provider, Role role) {
+    byte[] bytes = new byte[TOKEN_BYTES];
+    random.nextBytes(bytes);
+    String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+    refreshTokenMutationRepository.save(
+        RefreshTokenEntity.builder()
+            .tokenHash(TokenDigest.sha256(refreshToken))
+            .family(family)
+            .email(email)
+            .provider(provider)
+            .role(role)
+            .expiresAt(min(Instant.now().plus(expiration), familyExpiresAt))
+            .familyExpiresAt(familyExpiresAt)
+            .build());
+    return refreshToken;
+  }
+
+  private static Instant min(Instant a, Instant b) {
+    return a.isBefore(b) ? a : b;
+  }
+}
@@ -0,0 +1,197 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.entities.RevokedTokenEntity;
+import com.torresj.unseenauth.repositories.mutations.RevokedTokenMutationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revoked token ids until their expiration. Lookups check a Bloom filter first, so the usual
+ * not-revoked case is a few bit reads, and only filter hits go to the exact set. Revocations are
+ * stored through the mutations datasource, so revocations made in other pods are also seen: every
+ * unexpired one is read at startup and on purge, and in between each sync only reads the ones
+ * created since the last sync. Rows are created before they commit, so that window starts
+ * jwt.revocation.sync-overlap earlier than the last sync, and a revocation committed late is still
+ * read on a later sync.
+ */
+@Service
+@Slf4j
+public class RevocationService {
+
+  private static final int PAGE_SIZE = 1000;
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private final RevokedTokenMutationRepository revokedTokenMutationRepository;
+  private final boolean enabled;
+  private final int expectedRevocations;
+  private final Duration syncOverlap;
+
+  // jti -> expiration in millis
+  private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+  // A lock and not synchronized, revoke writes to the database and may run on a virtual thread
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile BloomFilter filter;
+  // Start of the last sync, rows created before it minus the overlap are already loaded
+  private Instant syncedAt;
+
+  public RevocationService(
+      RevokedTokenMutationRepository revokedTokenMutationRepository,
+      @Value("${jwt.revocation.enabled:false}") boolean enabled,
+      @Value("${jwt.revocation.expected-revocations:100000}") int expectedRevocations,
+      @Value("${jwt.revocation.sync-overlap:60000}") long syncOverlap) {
+    this.revokedTokenMutationRepository = revokedTokenMutationRepository;
+    this.enabled = enabled;
+    this.expectedRevocations = expectedRevocations;
+    this.syncOverlap = Duration.ofMillis(syncOverlap);
+    this.filter = new BloomFilter(expectedRevocations, FALSE_POSITIVE_PROBABILITY);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public boolean isRevoked(String jti) {
+    if (jti == null || !filter.mightContain(jti)) return false;
+    Long expiresAt = revoked.get(jti);
+    return expiresAt != null && expiresAt > System.currentTimeMillis();
+  }
+
+  public void revoke(String jti, long expiresAt) {
+    if (!enabled) throw new IllegalStateException("Token revocation is disabled");
+
+    lock.lock();
+    try {
+      if (revoked.containsKey(jti)) return;
+
+      log.debug("[REVOCATION SERVICE] Revoking " + jti);
+      revokedTokenMutationRepository.save(
+          RevokedTokenEntity.builder()
+              .jti(jti)
+              .expiresAt(Instant.ofEpochMilli(expiresAt))
+              .createdAt(Instant.now())
+              .build());
+      add(jti, expiresAt);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) return;
+
+    lock.lock();
+    try {
+      loadAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${jwt.revocation.sync-interval:10000}",
+      fixedDelayString = "${jwt.revocation.sync-interval:10000}")
+  public void sync() {
+    if (!enabled) return;
+
+    lock.lock();
+    try {
+      if (syncedAt == null) {
+        loadAll();
+        return;
+      }
+
+      Instant now = Instant.now();
+      Instant since = syncedAt.minus(syncOverlap);
+      int loaded = 0;
+      List<RevokedTokenEntity> page;
+      int pageNumber = 0;
+      do {
+        page =
+            revokedTokenMutationRepository
+                .findByCreatedAtAfterAndExpiresAtAfterOrderByCreatedAtAscIdAsc(
+                    since, now, PageRequest.of(pageNumber++, PAGE_SIZE));
+        loaded += addAll(page);
+      } while (page.size() == PAGE_SIZE);
+      syncedAt = now;
+
+      if (loaded > 0) log.info("[REVOCATION SERVICE] Loaded " + loaded + " revoked tokens");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets expired revocations and rebuilds the filter, which can not remove entries, from every
+   * unexpired revocation
+   */
+  @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:600000}")
+  public void purge() {
+    if (!enabled) return;
+
+    lock.lock();
+    try {
+      long now = System.currentTimeMillis();
+      revoked.values().removeIf(expiresAt -> expiresAt <= now);
+      var newFilter =
+          new BloomFilter(
+              Math.max(expectedRevocations, revoked.size()), FALSE_POSITIVE_PROBABILITY);
+      revoked.keySet().forEach(newFilter::put);
+      filter = newFilter;
+      loadAll();
+
+      long deleted =
+          revokedTokenMutationRepository.deleteByExpiresAtBefore(Instant.ofEpochMilli(now));
+      log.debug("[REVOCATION SERVICE] Purged " + deleted + " expired revocations");
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Pages by id, the window of the next sync starts when this load started
+  private void loadAll() {
+    Instant now = Instant.now();
+    int loaded = 0;
+    long lastId = 0;
+    List<RevokedTokenEntity> page;
+    do {
+      page =
+          revokedTokenMutationRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+              lastId, now, PageRequest.of(0, PAGE_SIZE));
+      loaded += addAll(page);
+      if (!page.isEmpty()) lastId = page.get(page.size() - 1).getId();
+    } while (page.size() == PAGE_SIZE);
+    syncedAt = now;
+
+    if (loaded > 0) log.info("[REVOCATION SERVICE] Loaded " + loaded + " revoked tokens");
+  }
+
+  private int addAll(List<RevokedTokenEntity> revokedTokens) {
+    int added = 0;
+    for (RevokedTokenEntity revokedToken : revokedTokens) {
+      if (!revoked.containsKey(revokedToken.getJti())) {
+        add(revokedToken.getJti(), revokedToken.getExpiresAt().toEpochMilli());
+        added++;
+      }
+    }
+    return added;
+  }
+
+  // Exact set first, so a filter hit always finds its entry
+  private void add(String jti, long expiresAt) {
+    revoked.put(jti, expiresAt);
+    filter.put(jti);
+  }
+}
@@ -0,0 +1,91 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import com.torresj.unseenauth.exceptions.NonceAlreadyUsedException;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import com.torresj.unseenauth.exceptions.UserInOtherProviderException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces concurrent sign ins with the same provider and token, as sent by clients that submit
+ * twice. The first one calls the provider and saves the user, the others wait for it and get its
+ * response or its exception. Sign ins are keyed by a hash of provider and token, and are forgotten
+ * as soon as they finish. Coalesced sign ins are counted as social.login.coalesced.
+ */
+@Component
+@Slf4j
+public class SocialLoginCoalescer {
+
+  private final boolean enabled;
+  private final MeterRegistry meterRegistry;
+  private final Map<ByteBuffer, CompletableFuture<SocialLoginDTO>> inFlight =
+      new ConcurrentHashMap<>();
+
+  public SocialLoginCoalescer(
+      @Value("${social.login.coalescing.enabled:false}") boolean enabled,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public SocialLoginDTO signIn(AuthSocialLogin authSocialLogin, AuthSocialTokenDTO authToken)
+      throws InvalidAccessTokenException, SocialAPIException, UserInOtherProviderException,
+          NonceAlreadyUsedException {
+    if (!enabled) return authSocialLogin.signIn(authToken);
+
+    ByteBuffer key =
+        ByteBuffer.wrap(TokenDigest.sha256(authToken.provider().name() + ":" + authToken.token()));
+    var signIn = new CompletableFuture<SocialLoginDTO>();
+    var leader = inFlight.putIfAbsent(key, signIn);
+    if (leader != null) {
+      log.debug("[SOCIAL LOGIN COALESCER] Waiting for " + authToken.provider().name() + " login");
+      Counter.builder("social.login.coalesced")
+          .tag("provider", authToken.provider().name())
+          .register(meterRegistry)
+          .increment();
+      return await(leader);
+    }
+
+    try {
+      SocialLoginDTO response = authSocialLogin.signIn(authToken);
+      signIn.complete(response);
+      return response;
+    } catch (Throwable exception) {
+      signIn.completeExceptionally(exception);
+      throw exception;
+    } finally {
+      inFlight.remove(key, signIn);
+    }
+  }
+
+  // Rethrows the exception of the leader, as if this sign in had thrown it
+  private static SocialLoginDTO await(CompletableFuture<SocialLoginDTO> leader)
+      throws InvalidAccessTokenException, SocialAPIException, UserInOtherProviderException,
+          NonceAlreadyUsedException {
+    try {
+      return leader.join();
+    } catch (CompletionException exception) {
+      Throwable cause = exception.getCause();
+      if (cause instanceof InvalidAccessTokenException invalidAccessToken) throw invalidAccessToken;
+      if (cause instanceof SocialAPIException socialAPI) throw socialAPI;
+      if (cause instanceof UserInOtherProviderException userInOtherProvider)
+        throw userInOtherProvider;
+      if (cause instanceof NonceAlreadyUsedException nonceAlreadyUsed) throw nonceAlreadyUsed;
+      if (cause instanceof RuntimeException runtime) throw runtime;
+      if (cause instanceof Error error) throw error;
+      throw exception;
+    }
+  }
+}
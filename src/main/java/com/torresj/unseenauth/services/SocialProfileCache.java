@@ -0,0 +1,71 @@
+package com.torresj.unseenauth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+/**
+ * Profiles resolved from provider access tokens, for a few seconds, so clients retrying a social
+ * login with the same token do not call the provider again. Entries are keyed by a hash of the
+ * provider and the token, tokens are never stored.
+ */
+@Component
+@Slf4j
+public class SocialProfileCache {
+
+  private static final String CACHE_NAME = "social.profiles";
+
+  private final boolean enabled;
+  private final Cache<ByteBuffer, SocialProfileDTO> cache;
+
+  public SocialProfileCache(
+      @Value("${social.profile-cache.enabled:false}") boolean enabled,
+      @Value("${social.profile-cache.max-size:10000}") long maxSize,
+      @Value("${social.profile-cache.ttl:60000}") long ttl,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMillis(ttl))
+            .recordStats()
+            .build();
+    if (enabled) CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Returns the cached profile for this token or gets it from the provider. Only resolved profiles
+   * are cached, errors are always retried.
+   */
+  public SocialProfileDTO get(AuthProvider provider, String token, ProfileLoader loader)
+      throws InvalidAccessTokenException, SocialAPIException {
+    if (!enabled) return loader.load(token);
+
+    ByteBuffer key = ByteBuffer.wrap(TokenDigest.sha256(provider.name() + ":" + token));
+    SocialProfileDTO profile = cache.getIfPresent(key);
+    if (profile != null) {
+      log.debug("[SOCIAL PROFILE CACHE] Hit for " + provider.name());
+      return profile;
+    }
+
+    profile = loader.load(token);
+    cache.put(key, profile);
+    return profile;
+  }
+
+  @FunctionalInterface
+  public interface ProfileLoader {
+    SocialProfileDTO load(String token) throws InvalidAccessTokenException, SocialAPIException;
+  }
+}
@@ -0,0 +1,127 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import com.torresj.unseenauth.services.SocialProfileCache.ProfileLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bulkhead and circuit breaker for each social provider. A provider gets at most maxConcurrent
+ * calls at a time, and further calls are rejected right away instead of waiting for a connection.
+ * Server errors and timeouts open the provider's circuit, and while it is open calls fail fast.
+ * Both rejections surface as SocialAPIException. Client errors, like invalid tokens, mean the
+ * provider is answering, so they count as successes.
+ *
+ * <p>Circuit state is published as social.provider.circuit.state (0 closed, 1 open, 2 half open)
+ * and rejections as social.provider.rejected, tagged by provider and reason.
+ */
+@Component
+@Slf4j
+public class SocialProviderGuard {
+
+  private final boolean enabled;
+  private final int maxConcurrent;
+  private final int windowSize;
+  private final int failureRateThreshold;
+  private final long openDuration;
+  private final MeterRegistry meterRegistry;
+  private final Map<AuthProvider, ProviderGuard> guards = new ConcurrentHashMap<>();
+
+  public SocialProviderGuard(
+      @Value("${social.guard.enabled:false}") boolean enabled,
+      @Value("${social.guard.max-concurrent:50}") int maxConcurrent,
+      @Value("${social.guard.window-size:20}") int windowSize,
+      @Value("${social.guard.failure-rate-threshold:50}") int failureRateThreshold,
+      @Value("${social.guard.open-duration:30000}") long openDuration,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.maxConcurrent = maxConcurrent;
+    this.windowSize = windowSize;
+    this.failureRateThreshold = failureRateThreshold;
+    this.openDuration = openDuration;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public SocialProfileDTO get(AuthProvider provider, String token, ProfileLoader loader)
+      throws InvalidAccessTokenException, SocialAPIException {
+    if (!enabled) return loader.load(token);
+
+    ProviderGuard guard = guards.computeIfAbsent(provider, this::createGuard);
+    if (!guard.bulkhead.tryAcquire()) {
+      log.warn("[SOCIAL PROVIDER GUARD] Too many concurrent calls to " + provider.name());
+      rejected(provider, "bulkhead");
+      throw new SocialAPIException();
+    }
+
+    try {
+      if (!guard.circuitBreaker.tryAcquire()) {
+        log.warn("[SOCIAL PROVIDER GUARD] Circuit open for " + provider.name());
+        rejected(provider, "circuit");
+        throw new SocialAPIException();
+      }
+      return call(guard.circuitBreaker, token, loader);
+    } finally {
+      guard.bulkhead.release();
+    }
+  }
+
+  /** Circuit state of the providers called so far */
+  Map<AuthProvider, CircuitBreaker.State> getStates() {
+    Map<AuthProvider, CircuitBreaker.State> states = new ConcurrentHashMap<>();
+    guards.forEach((provider, guard) -> states.put(provider, guard.circuitBreaker.getState()));
+    return states;
+  }
+
+  private static SocialProfileDTO call(
+      CircuitBreaker circuitBreaker, String token, ProfileLoader loader)
+      throws InvalidAccessTokenException, SocialAPIException {
+    try {
+      SocialProfileDTO profile = loader.load(token);
+      circuitBreaker.onSuccess();
+      return profile;
+    } catch (InvalidAccessTokenException | HttpClientErrorException exception) {
+      circuitBreaker.onSuccess();
+      throw exception;
+    } catch (Throwable exception) {
+      circuitBreaker.onFailure();
+      throw exception;
+    }
+  }
+
+  private ProviderGuard createGuard(AuthProvider provider) {
+    var guard =
+        new ProviderGuard(
+            new Semaphore(maxConcurrent),
+            new CircuitBreaker(windowSize, failureRateThreshold, openDuration));
+    Gauge.builder(
+            "social.provider.circuit.state",
+            guard.circuitBreaker,
+            circuitBreaker -> circuitBreaker.getState().ordinal())
+        .tag("provider", provider.name())
+        .description("0 closed, 1 open, 2 half open")
+        .register(meterRegistry);
+    return guard;
+  }
+
+  private void rejected(AuthProvider provider, String reason) {
+    Counter.builder("social.provider.rejected")
+        .tag("provider", provider.name())
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+  }
+
+  private record ProviderGuard(Semaphore bulkhead, CircuitBreaker circuitBreaker) {}
+}
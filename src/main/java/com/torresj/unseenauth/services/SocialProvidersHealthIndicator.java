@@ -0,0 +1,29 @@
+package com.torresj.unseenauth.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit state of each social provider. An open circuit reports DEGRADED, which is left out of the
+ * aggregated status, so an unhealthy provider never takes the service out of the load balancer.
+ */
+@Component
+@RequiredArgsConstructor
+public class SocialProvidersHealthIndicator implements HealthIndicator {
+
+  static final Status DEGRADED = new Status("DEGRADED");
+
+  private final SocialProviderGuard socialProviderGuard;
+
+  @Override
+  public Health health() {
+    var states = socialProviderGuard.getStates();
+    var health =
+        states.containsValue(CircuitBreaker.State.OPEN) ? Health.status(DEGRADED) : Health.up();
+    states.forEach((provider, state) -> health.withDetail(provider.name(), state.name()));
+    return health.build();
+  }
+}
@@ -0,0 +1,213 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.config.AbortableRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedged GET requests to the social providers. The request is sent from the calling thread, and
+ * when it has not answered after the configured percentile of the provider's latency, an identical
+ * request is sent from the hedging executor. The first response is used and the HTTP exchange of
+ * the other request is aborted. Errors are not hedged. Each request adds maxRate to a small budget
+ * and each hedge spends one, so hedges never exceed that share of the requests, and a hedge is
+ * skipped as well when the executor has no free thread.
+ *
+ * <p>Published as social.hedging.requests, social.hedging.hedges, social.hedging.wins (hedges that
+ * answered first), social.hedging.skipped (hedges over budget or without a thread) and
+ * social.hedging.latency, all tagged by provider.
+ */
+@Component
+@Slf4j
+public class SocialRequestHedger {
+
+  private static final long TOKEN = 1_000_000;
+  private static final long MAX_BUDGET = 10 * TOKEN;
+
+  private final AsyncTaskExecutor executor;
+  private final boolean enabled;
+  private final double percentile;
+  private final long minDelay;
+  private final long initialDelay;
+  private final long tokensPerRequest;
+  private final MeterRegistry meterRegistry;
+  private final Map<AuthProvider, ProviderHedging> providers = new ConcurrentHashMap<>();
+  // Only starts hedges, which run on the executor
+  private final ScheduledThreadPoolExecutor timer;
+
+  public SocialRequestHedger(
+      @Qualifier("socialHedgingExecutor") AsyncTaskExecutor executor,
+      @Value("${social.hedging.enabled:false}") boolean enabled,
+      @Value("${social.hedging.percentile:0.95}") double percentile,
+      @Value("${social.hedging.min-delay:20}") long minDelay,
+      @Value("${social.hedging.initial-delay:500}") long initialDelay,
+      @Value("${social.hedging.max-rate:0.05}") double maxRate,
+      MeterRegistry meterRegistry) {
+    this.executor = executor;
+    this.enabled = enabled;
+    this.percentile = percentile;
+    this.minDelay = minDelay;
+    this.initialDelay = initialDelay;
+    this.tokensPerRequest = (long) (maxRate * TOKEN);
+    this.meterRegistry = meterRegistry;
+    this.timer =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              var thread = new Thread(runnable, "social-hedging-timer");
+              thread.setDaemon(true);
+              return thread;
+            });
+    this.timer.setRemoveOnCancelPolicy(true);
+  }
+
+  /** Runs an idempotent request, hedging it if it is slow */
+  public <T> T get(AuthProvider provider, Supplier<T> request) {
+    if (!enabled) return request.get();
+
+    ProviderHedging hedging = providers.computeIfAbsent(provider, this::createHedging);
+    hedging.requests.increment();
+    hedging.budget.accumulateAndGet(
+        tokensPerRequest, (budget, tokens) -> Math.min(MAX_BUDGET, budget + tokens));
+
+    var attempt = new Attempt<T>(hedging, request);
+    ScheduledFuture<?> hedge =
+        timer.schedule(() -> hedge(attempt, provider), delay(hedging), TimeUnit.MILLISECONDS);
+    try {
+      long start = System.nanoTime();
+      T response;
+      try {
+        response = attempt.primary.run(request);
+      } catch (RuntimeException | Error exception) {
+        // Aborted because the hedge answered, or failed while the hedge can still answer
+        if (attempt.result.isDone() || attempt.pending.decrementAndGet() > 0) return attempt.join();
+        throw exception;
+      }
+      hedging.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return attempt.result.complete(response) ? response : attempt.join();
+    } finally {
+      // The losing request is not needed anymore
+      hedge.cancel(false);
+      attempt.hedge.abort();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    timer.shutdownNow();
+  }
+
+  private <T> void hedge(Attempt<T> attempt, AuthProvider provider) {
+    ProviderHedging hedging = attempt.hedging;
+    if (attempt.result.isDone()) return;
+    if (hedging.budget.getAndUpdate(budget -> budget >= TOKEN ? budget - TOKEN : budget) < TOKEN) {
+      hedging.skipped.increment();
+      return;
+    }
+    // The primary request may have failed meanwhile, then there is nothing to hedge
+    if (attempt.pending.getAndUpdate(attempts -> attempts == 0 ? 0 : attempts + 1) == 0) return;
+
+    try {
+      executor.execute(() -> runHedge(attempt));
+    } catch (TaskRejectedException exception) {
+      attempt.pending.decrementAndGet();
+      hedging.budget.addAndGet(TOKEN);
+      hedging.skipped.increment();
+      return;
+    }
+    log.debug("[SOCIAL REQUEST HEDGER] Hedging slow request to " + provider.name());
+    hedging.hedges.increment();
+  }
+
+  private static <T> void runHedge(Attempt<T> attempt) {
+    long start = System.nanoTime();
+    try {
+      T response = attempt.hedge.run(attempt.request);
+      attempt.hedging.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      if (attempt.result.complete(response)) {
+        attempt.hedging.wins.increment();
+        attempt.primary.abort();
+      }
+    } catch (Throwable exception) {
+      // Failed only when no other attempt can still answer
+      if (attempt.pending.decrementAndGet() == 0) attempt.result.completeExceptionally(exception);
+    }
+  }
+
+  private long delay(ProviderHedging hedging) {
+    ValueAtPercentile[] percentiles = hedging.latency.takeSnapshot().percentileValues();
+    if (hedging.latency.count() == 0 || percentiles.length == 0) return initialDelay;
+    return Math.max(minDelay, (long) percentiles[0].value(TimeUnit.MILLISECONDS));
+  }
+
+  private static RuntimeException rethrow(Throwable cause) {
+    if (cause instanceof RuntimeException runtime) return runtime;
+    if (cause instanceof Error error) throw error;
+    return new IllegalStateException(cause);
+  }
+
+  private ProviderHedging createHedging(AuthProvider provider) {
+    String tag = provider.name();
+    return new ProviderHedging(
+        Timer.builder("social.hedging.latency")
+            .tag("provider", tag)
+            .publishPercentiles(percentile)
+            .register(meterRegistry),
+        Counter.builder("social.hedging.requests").tag("provider", tag).register(meterRegistry),
+        Counter.builder("social.hedging.hedges").tag("provider", tag).register(meterRegistry),
+        Counter.builder("social.hedging.wins").tag("provider", tag).register(meterRegistry),
+        Counter.builder("social.hedging.skipped").tag("provider", tag).register(meterRegistry),
+        new AtomicLong());
+  }
+
+  // A primary request on the calling thread and at most one hedge
+  private static class Attempt<T> {
+    private final ProviderHedging hedging;
+    private final Supplier<T> request;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private final AbortableRequest primary = new AbortableRequest();
+    private final AbortableRequest hedge = new AbortableRequest();
+
+    private Attempt(ProviderHedging hedging, Supplier<T> request) {
+      this.hedging = hedging;
+      this.request = request;
+    }
+
+    private T join() {
+      try {
+        return result.join();
+      } catch (CompletionException exception) {
+        throw rethrow(exception.getCause());
+      }
+    }
+  }
+
+  private record ProviderHedging(
+      Timer latency,
+      Counter requests,
+      Counter hedges,
+      Counter wins,
+      Counter skipped,
+      AtomicLong budget) {}
+}
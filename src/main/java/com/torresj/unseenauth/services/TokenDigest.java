@@ -0,0 +1,25 @@
+package com.torresj.unseenauth.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** SHA-256 of tokens, to index them without keeping the tokens themselves */
+final class TokenDigest {
+
+  private static final ThreadLocal<MessageDigest> DIGESTS =
+      ThreadLocal.withInitial(
+          () -> {
+            try {
+              return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException exception) {
+              throw new IllegalStateException(exception);
+            }
+          });
+
+  private TokenDigest() {}
+
+  static byte[] sha256(String token) {
+    return DIGESTS.get().digest(token.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,106 @@
+package com.torresj.unseenauth.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenauth.exceptions.UserNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Users by normalized email, kept for a short TTL when enabled, so repeated logins of the same
+ * account do not hit the replica. Concurrent misses of a user share a single load, and users saved
+ * by other instances are seen once the TTL expires.
+ */
+@Component
+public class UserCache {
+  private static final String CACHE_NAME = "users";
+
+  private final boolean enabled;
+  private final AsyncCache<String, UserEntity> cache;
+
+  public UserCache(
+      @Value("${users.cache.enabled:false}") boolean enabled,
+      @Value("${users.cache.max-size:10000}") long maxSize,
+      @Value("${users.cache.ttl:30000}") long ttl,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMillis(ttl))
+            .recordStats()
+            .buildAsync();
+    if (enabled) CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public UserEntity get(String email, Loader loader) throws UserNotFoundException {
+    if (!enabled) return loader.load();
+
+    // Only an empty future is added under the map bin lock, and this thread loads it outside, so
+    // the lock is never held during a query, which would pin virtual threads. Concurrent gets of
+    // the same user wait for that load. Failed loads are removed, so unknown users are not cached
+    var load = new CompletableFuture<UserEntity>();
+    CompletableFuture<UserEntity> user =
+        cache.get(KnownEmailFilter.normalize(email), (key, executor) -> load);
+    if (user == load) {
+      try {
+        load.complete(loader.load());
+      } catch (Throwable exception) {
+        load.completeExceptionally(exception);
+      }
+    }
+
+    // Callers modify the user before saving it, so they never get the cached instance
+    return join(user).toBuilder().build();
+  }
+
+  /** Replaces a load in progress too, which may have read the user before it was saved */
+  public void put(UserEntity user) {
+    if (enabled)
+      cache.put(
+          KnownEmailFilter.normalize(user.getEmail()),
+          CompletableFuture.completedFuture(user.toBuilder().build()));
+  }
+
+  public void registerLogin(String email, long nonce) {
+    if (!enabled) return;
+
+    cache
+        .asMap()
+        .computeIfPresent(
+            KnownEmailFilter.normalize(email),
+            (key, cached) -> {
+              // A load in progress may or may not have read this login, it is dropped instead
+              if (!cached.isDone() || cached.isCompletedExceptionally()) return null;
+              UserEntity user = cached.join();
+              return CompletableFuture.completedFuture(
+                  user.toBuilder().numLogins(user.getNumLogins() + 1).nonce(nonce).build());
+            });
+  }
+
+  private static UserEntity join(CompletableFuture<UserEntity> user) throws UserNotFoundException {
+    try {
+      return user.join();
+    } catch (CompletionException exception) {
+      if (exception.getCause() instanceof UserNotFoundException notFound) throw notFound;
+      if (exception.getCause() instanceof RuntimeException runtime) throw runtime;
+      if (exception.getCause() instanceof Error error) throw error;
+      throw exception;
+    }
+  }
+
+  public interface Loader {
+    UserEntity load() throws UserNotFoundException;
+  }
+}
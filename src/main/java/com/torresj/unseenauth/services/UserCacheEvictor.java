@@ -0,0 +1,46 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.UserEntity;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Evicts written users from the second level cache of every entity manager factory. Users are
+ * written through the mutations entity manager, which does not invalidate the regions of the
+ * queries one. Only this instance is evicted, others see the write once the region TTL expires.
+ */
+@Component
+@Slf4j
+public class UserCacheEvictor {
+
+  private final List<EntityManagerFactory> entityManagerFactories;
+  private final boolean enabled;
+
+  public UserCacheEvictor(
+      List<EntityManagerFactory> entityManagerFactories,
+      @Value("${users.l2-cache.enabled:false}") boolean enabled) {
+    this.entityManagerFactories = entityManagerFactories;
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Evicts a user after it has been updated */
+  public void evict(long id) {
+    if (!enabled) return;
+
+    log.debug("[USER CACHE EVICTOR] Evicting user " + id);
+    for (var entityManagerFactory : entityManagerFactories)
+      entityManagerFactory
+          .unwrap(SessionFactory.class)
+          .getCache()
+          .evictEntityData(UserEntity.class, id);
+  }
+}
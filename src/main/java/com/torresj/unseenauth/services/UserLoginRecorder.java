@@ -0,0 +1,33 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.repositories.mutations.UserLoginMutationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts logins and consumes their nonce with a single conditional update, so only one of several
+ * concurrent logins with the same nonce succeeds. With write-behind, only the nonce is updated
+ * right away and the count is left to the LoginCountWriter.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class UserLoginRecorder {
+
+  private final UserLoginMutationRepository userLoginMutationRepository;
+  private final LoginCountWriter loginCountWriter;
+
+  /**
+   * @return false if the nonce had already been used
+   */
+  public boolean record(long id, long nonce) {
+    log.debug("[USER LOGIN RECORDER] Recording login of user " + id);
+    if (!loginCountWriter.isEnabled())
+      return userLoginMutationRepository.registerLogin(id, nonce) > 0;
+
+    if (userLoginMutationRepository.consumeNonce(id, nonce) == 0) return false;
+    loginCountWriter.increment(id);
+    return true;
+  }
+}
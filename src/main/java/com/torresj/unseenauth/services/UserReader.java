@@ -0,0 +1,111 @@
+package com.torresj.unseenauth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenauth.config.ReplicaRoutingDataSource;
+import com.torresj.unseenauth.dtos.UserCredentialsDTO;
+import com.torresj.unseenauth.exceptions.UserNotFoundException;
+import com.torresj.unseenauth.repositories.queries.UserCachedQueryRepository;
+import com.torresj.unseenauth.repositories.queries.UserCredentialsQueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Reads users from the query datasource. Emails that are not in the KnownEmailFilter are rejected
+ * without a query, and users written recently are read from the primary. With the second level
+ * cache of UserCacheConfig, users are read through it, and by email through the query cache once
+ * the email has been found.
+ */
+@Component
+@Slf4j
+public class UserReader {
+
+  private final UserQueryRepository userQueryRepository;
+  private final UserCredentialsQueryRepository userCredentialsQueryRepository;
+  private final UserCachedQueryRepository userCachedQueryRepository;
+  private final KnownEmailFilter knownEmailFilter;
+  private final UserCacheEvictor userCacheEvictor;
+  private final RecentUserWrites recentUserWrites;
+  // Emails found in the database, the only ones looked up through the query cache
+  private final Cache<String, Boolean> existingEmails;
+
+  public UserReader(
+      UserQueryRepository userQueryRepository,
+      UserCredentialsQueryRepository userCredentialsQueryRepository,
+      UserCachedQueryRepository userCachedQueryRepository,
+      KnownEmailFilter knownEmailFilter,
+      UserCacheEvictor userCacheEvictor,
+      RecentUserWrites recentUserWrites,
+      @Value("${users.cache.max-size:10000}") long maxSize) {
+    this.userQueryRepository = userQueryRepository;
+    this.userCredentialsQueryRepository = userCredentialsQueryRepository;
+    this.userCachedQueryRepository = userCachedQueryRepository;
+    this.knownEmailFilter = knownEmailFilter;
+    this.userCacheEvictor = userCacheEvictor;
+    this.recentUserWrites = recentUserWrites;
+    this.existingEmails = Caffeine.newBuilder().maximumSize(maxSize).build();
+  }
+
+  public UserEntity find(String email) throws UserNotFoundException {
+    checkKnown(email);
+    return recentUserWrites
+        .read(email, () -> findByEmail(email))
+        .orElseThrow(UserNotFoundException::new);
+  }
+
+  /** Read with a projection, so no entity is loaded, unless users go through the cache */
+  public UserCredentialsDTO findCredentials(String email) throws UserNotFoundException {
+    if (userCacheEvictor.isEnabled()) return UserCredentialsDTO.from(find(email));
+
+    checkKnown(email);
+    return recentUserWrites
+        .read(email, () -> userCredentialsQueryRepository.findCredentialsByEmail(email))
+        .orElseThrow(UserNotFoundException::new);
+  }
+
+  /** Before a user is saved, so it is never reported as unknown nor read from the replica */
+  public void saving(UserEntity user) {
+    knownEmailFilter.add(user.getEmail());
+    recentUserWrites.written(user.getEmail());
+  }
+
+  public void saved(UserEntity user) {
+    existingEmails.put(KnownEmailFilter.normalize(user.getEmail()), Boolean.TRUE);
+    userCacheEvictor.evict(user.getId());
+  }
+
+  /** Reads the user again from the primary, so the next login still finds it in the cache */
+  public void loggedIn(long id, String email) {
+    recentUserWrites.written(email);
+    if (userCacheEvictor.isEnabled()) {
+      userCacheEvictor.evict(id);
+      ReplicaRoutingDataSource.readFromPrimary(() -> userCachedQueryRepository.findById(id));
+    }
+  }
+
+  private void checkKnown(String email) throws UserNotFoundException {
+    if (!knownEmailFilter.mightExist(email)) {
+      log.debug("[USER READER] Unknown email " + email);
+      throw new UserNotFoundException();
+    }
+  }
+
+  private Optional<UserEntity> findByEmail(String email) {
+    if (!userCacheEvictor.isEnabled()) return userQueryRepository.findByEmail(email);
+
+    String key = KnownEmailFilter.normalize(email);
+    if (existingEmails.getIfPresent(key) != null)
+      return userCachedQueryRepository
+          .findCachedIdByEmail(email)
+          .flatMap(userCachedQueryRepository::findById);
+
+    Optional<Long> id = userCachedQueryRepository.findIdByEmail(email);
+    id.ifPresent(found -> existingEmails.put(key, Boolean.TRUE));
+    return id.flatMap(userCachedQueryRepository::findById);
+  }
+}
@@ -2,26 +2,60 @@ package com.torresj.unseenauth.services;
 
 import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseen.repositories.mutations.UserMutationRepository;
-import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenauth.dtos.UserCredentialsDTO;
 import com.torresj.unseenauth.exceptions.UserNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+/** Users by email, read through the UserCache and the UserReader, which writes keep up to date */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class UserService {
-  private final UserQueryRepository userQueryRepository;
+  private final UserReader userReader;
+  private final UserCache userCache;
   private final UserMutationRepository userMutationRepository;
+  private final UserLoginRecorder userLoginRecorder;
 
   public UserEntity get(String email) throws UserNotFoundException {
     log.debug("[USER SERVICE] Getting user by email " + email);
-    return userQueryRepository.findByEmail(email).orElseThrow(UserNotFoundException::new);
+    return userCache.get(email, () -> userReader.find(email));
+  }
+
+  /** Only the fields needed to check a login. With the cache the whole user is read, as get does */
+  public UserCredentialsDTO getCredentials(String email) throws UserNotFoundException {
+    log.debug("[USER SERVICE] Getting credentials by email " + email);
+    if (userCache.isEnabled()) return UserCredentialsDTO.from(get(email));
+    return userReader.findCredentials(email);
   }
 
   public void save(UserEntity user) {
     log.debug("[USER SERVICE] Saving user");
-    userMutationRepository.save(user);
+    userReader.saving(user);
+    UserEntity saved = userMutationRepository.save(user);
+    userReader.saved(saved);
+    userCache.put(saved);
+  }
+
+  /**
+   * Counts a login of this user and consumes its nonce
+   *
+   * @return false if the nonce had already been used
+   */
+  public boolean registerLogin(UserEntity user, long nonce) {
+    return registerLogin(user.getId(), user.getEmail(), nonce);
+  }
+
+  public boolean registerLogin(UserCredentialsDTO user, long nonce) {
+    return registerLogin(user.id(), user.email(), nonce);
+  }
+
+  private boolean registerLogin(long id, String email, long nonce) {
+    log.debug("[USER SERVICE] Registering login");
+    if (!userLoginRecorder.record(id, nonce)) return false;
+    userReader.loggedIn(id, email);
+    userCache.registerLogin(email, nonce);
+    return true;
   }
 }
@@ -0,0 +1,78 @@
+package com.torresj.unseenauth.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.torresj.unseenauth.dtos.VerifiedJwtDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+  private static final String CACHE_NAME = "jwt.verified";
+
+  private final boolean enabled;
+  private final Cache<ByteBuffer, VerifiedJwtDTO> cache;
+
+  public VerifiedTokenCache(
+      @Value("${jwt.cache.enabled:false}") boolean enabled,
+      @Value("${jwt.cache.max-size:10000}") long maxSize,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new ExpireAtTokenExpiration())
+            .recordStats()
+            .build();
+    if (enabled) CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+  }
+
+  /**
+   * Returns the cached verification of this token or verifies it with the given function. Only
+   * successfully verified tokens are cached, and never beyond their own expiration.
+   */
+  public VerifiedJwtDTO get(String jwt, Function<String, VerifiedJwtDTO> verifier) {
+    if (!enabled) return verifier.apply(jwt);
+
+    ByteBuffer key = ByteBuffer.wrap(TokenDigest.sha256(jwt));
+    VerifiedJwtDTO verified = cache.getIfPresent(key);
+    if (verified != null) {
+      log.debug("[VERIFIED TOKEN CACHE] Hit");
+      return verified;
+    }
+
+    verified = verifier.apply(jwt);
+    if (verified.expiresAt() > System.currentTimeMillis()) cache.put(key, verified);
+    return verified;
+  }
+
+  private static class ExpireAtTokenExpiration implements Expiry<ByteBuffer, VerifiedJwtDTO> {
+    @Override
+    public long expireAfterCreate(ByteBuffer key, VerifiedJwtDTO value, long currentTime) {
+      long millis = Math.max(0, value.expiresAt() - System.currentTimeMillis());
+      return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        ByteBuffer key, VerifiedJwtDTO value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        ByteBuffer key, VerifiedJwtDTO value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.torresj.unseenauth;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseen.repositories.mutations.UserMutationRepository;
+import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenauth.dtos.*;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import com.torresj.unseenauth.services.JwtService;
+import com.torresj.unseenauth.services.ReactiveSocialProfileClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static com.torresj.unseenauth.utils.TestUtils.GenerateUser;
+import static org.mockito.Mockito.when;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactiveAuthApplicationTests {
+
+  private final String email = "test@test.com";
+  private final String password = "test";
+
+  @Autowired private WebTestClient webTestClient;
+  @Autowired private UserMutationRepository userMutationRepository;
+  @Autowired private UserQueryRepository userQueryRepository;
+  @Autowired private JwtService jwtService;
+  @MockBean private ReactiveSocialProfileClient reactiveSocialProfileClient;
+
+  @BeforeEach
+  public void init() {
+    userMutationRepository.deleteAll();
+  }
+
+  @Test
+  @DisplayName("Reactive unseen valid login")
+  void unseenLogin() {
+    UserEntity user =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+    UnseenLoginDTO unseenLoginDTO = new UnseenLoginDTO(email, password, 223456789);
+
+    LoginResponseDTO response =
+        webTestClient
+            .post()
+            .uri("/v1/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(unseenLoginDTO)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(LoginResponseDTO.class)
+            .returnResult()
+            .getResponseBody();
+
+    UserEntity userDB = userQueryRepository.findByEmail(email).get();
+    Assertions.assertEquals(email, response.email());
+    Assertions.assertEquals(email, jwtService.validateJWT(response.jwt()).email());
+    Assertions.assertEquals(user.getNumLogins() + 1, userDB.getNumLogins());
+    Assertions.assertEquals(unseenLoginDTO.nonce(), userDB.getNonce());
+  }
+
+  @Test
+  @DisplayName("Reactive unseen login with user not found")
+  void unseenLoginWithUserNotFound() {
+    webTestClient
+        .post()
+        .uri("/v1/auth/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new UnseenLoginDTO(email, password, 223456789))
+        .exchange()
+        .expectStatus()
+        .isUnauthorized()
+        .expectBody()
+        .jsonPath("$.reason")
+        .isEqualTo("Invalid credentials");
+  }
+
+  @Test
+  @DisplayName("Reactive Google login with a new user")
+  void newUserGoogleLogin() {
+    AuthSocialTokenDTO authSocialTokenDTO =
+        new AuthSocialTokenDTO("JWT", AuthProvider.GOOGLE, 323456789);
+    when(reactiveSocialProfileClient.getProfile(AuthProvider.GOOGLE, "JWT"))
+        .thenReturn(Mono.just(new SocialProfileDTO(email, "test", "https://photo.com")));
+
+    LoginResponseDTO response =
+        webTestClient
+            .post()
+            .uri("/v1/auth/social/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(authSocialTokenDTO)
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(LoginResponseDTO.class)
+            .returnResult()
+            .getResponseBody();
+
+    UserEntity userDB = userQueryRepository.findByEmail(email).get();
+    Assertions.assertEquals(email, response.email());
+    Assertions.assertEquals(Role.USER, jwtService.validateJWT(response.jwt()).role());
+    Assertions.assertEquals(AuthProvider.GOOGLE, userDB.getProvider());
+    Assertions.assertEquals(authSocialTokenDTO.nonce(), userDB.getNonce());
+  }
+
+  @Test
+  @DisplayName("Reactive social login with provider error")
+  void socialLoginWithProviderError() {
+    when(reactiveSocialProfileClient.getProfile(AuthProvider.FACEBOOK, "JWT"))
+        .thenReturn(Mono.error(new SocialAPIException()));
+
+    webTestClient
+        .post()
+        .uri("/v1/auth/social/login")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(new AuthSocialTokenDTO("JWT", AuthProvider.FACEBOOK, 323456789))
+        .exchange()
+        .expectStatus()
+        .isUnauthorized()
+        .expectBody()
+        .jsonPath("$.reason")
+        .isEqualTo("Error with Social provider API server");
+  }
+
+  @Test
+  @DisplayName("Reactive authorize valid JWT")
+  void authorize() {
+    String jwt = jwtService.generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN);
+
+    AuthorizeResponseDTO response =
+        webTestClient
+            .post()
+            .uri("/v1/auth/authorize")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new AuthorizeRequestDTO(jwt))
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectBody(AuthorizeResponseDTO.class)
+            .returnResult()
+            .getResponseBody();
+
+    Assertions.assertEquals(email, response.email());
+    Assertions.assertEquals(Role.ADMIN, response.role());
+  }
+}
@@ -11,6 +11,8 @@ import com.torresj.unseenauth.dtos.facebook.FacebookUser;
 import com.torresj.unseenauth.dtos.facebook.Picture;
 import com.torresj.unseenauth.dtos.google.People;
 import com.torresj.unseenauth.services.JwtService;
+import com.torresj.unseenauth.services.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -31,6 +33,7 @@ import org.springframework.web.client.RestTemplate;
 
 import java.io.File;
 import java.net.URI;
+import java.util.List;
 
 import static com.torresj.unseenauth.utils.TestUtils.GenerateUser;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
@@ -58,7 +61,9 @@ class UnseenAuthApplicationTests {
   @Autowired private UserMutationRepository userMutationRepository;
   @Autowired private UserQueryRepository userQueryRepository;
   @Autowired private JwtService jwtService;
+  @Autowired private UserService userService;
   @Autowired private RestTemplate restTemplate;
+  @Autowired private MeterRegistry meterRegistry;
 
   @Value("${social.login.google.url}")
   private String googleUrl;
@@ -529,7 +534,7 @@ class UnseenAuthApplicationTests {
   @DisplayName("Facebook Login with an existing user integration test")
   void facebookLogin() throws Exception {
     // Mock restTemplate
-    mockServer = MockRestServiceServer.createServer(restTemplate);
+    mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
 
     // Create a valid user in DB
     UserEntity user =
@@ -594,7 +599,7 @@ class UnseenAuthApplicationTests {
   @DisplayName("Facebook Login with a new user integration test")
   void newUserFacebookLogin() throws Exception {
     // Mock restTemplate
-    mockServer = MockRestServiceServer.createServer(restTemplate);
+    mockServer = MockRestServiceServer.bindTo(restTemplate).ignoreExpectOrder(true).build();
 
     // Create request object
     AuthSocialTokenDTO authSocialTokenDTO =
@@ -883,4 +888,219 @@ class UnseenAuthApplicationTests {
         "JWT signature does not match locally computed signature. JWT validity cannot be asserted and should not be trusted.",
         error);
   }
+
+  @Test
+  @DisplayName("Authorize batch with valid and invalid JWTs")
+  void batchAuthorization() throws Exception {
+    // Create JWTs
+    String validJwt = jwtService.generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN);
+    String invalidJwt = validJwt + "invalid";
+
+    // Create request object
+    List<AuthorizeRequestDTO> requestDTOs =
+        List.of(new AuthorizeRequestDTO(validJwt), new AuthorizeRequestDTO(invalidJwt));
+
+    // Post /authorize/batch
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/auth/authorize/batch")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(requestDTOs)))
+            .andExpect(status().isOk());
+    // Parsing response
+    var content = result.andReturn().getResponse().getContentAsString();
+    AuthorizeResultDTO[] response = objectMapper.readValue(content, AuthorizeResultDTO[].class);
+
+    // Checks
+    Assertions.assertEquals(2, response.length);
+    Assertions.assertTrue(response[0].valid());
+    Assertions.assertEquals(email, response[0].email());
+    Assertions.assertEquals(Role.ADMIN, response[0].role());
+    Assertions.assertFalse(response[1].valid());
+    Assertions.assertEquals(
+        "JWT signature does not match locally computed signature. JWT validity cannot be asserted and should not be trusted.",
+        response[1].reason());
+  }
+
+  @Test
+  @DisplayName("Revoked JWT is not authorized")
+  void revokedJwtAuthorization() throws Exception {
+    // Create JWT
+    String jwt = jwtService.generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN);
+
+    // Create request object
+    AuthorizeRequestDTO requestDTO = new AuthorizeRequestDTO(jwt);
+
+    // Post /authorize to get it cached
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.post("/v1/auth/authorize")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDTO)))
+        .andExpect(status().isOk());
+
+    // Post /revoke
+    mockMvc
+        .perform(
+            MockMvcRequestBuilders.post("/v1/auth/revoke")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestDTO)))
+        .andExpect(status().isNoContent());
+
+    // Post /authorize
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/auth/authorize")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(requestDTO)))
+            .andExpect(status().isUnauthorized());
+
+    Assertions.assertEquals(
+        "JWT has been revoked", result.andReturn().getResponse().getErrorMessage());
+  }
+
+  @Test
+  @DisplayName("Refresh rotates the refresh token and detects reuse")
+  void refresh() throws Exception {
+    // Create a valid user in DB
+    userMutationRepository.save(
+        GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+
+    // Post /login
+    var loginResult =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/auth/login")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        objectMapper.writeValueAsString(
+                            new UnseenLoginDTO(email, password, 223456789))))
+            .andExpect(status().isOk());
+    LoginResponseDTO login =
+        objectMapper.readValue(
+            loginResult.andReturn().getResponse().getContentAsString(), LoginResponseDTO.class);
+
+    // Post /refresh
+    var refreshResult =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.post("/v1/auth/refresh")
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        objectMapper.writeValueAsString(
+                            new RefreshRequestDTO(login.refreshToken()))))
+            .andExpect(status().isOk());
+    LoginResponseDTO refreshed =
+        objectMapper.readValue(
+            refreshResult.andReturn().getResponse().getContentAsString(), LoginResponseDTO.class);
+
+    // Checks
+    var authResponse = jwtService.validateJWT(refreshed.jwt());
+    Assertions.assertEquals(email, authResponse.email());
+    Assertions.assertEquals(Role.ADMIN, authResponse.role());
+    Assertions.assertNotEquals(login.refreshToken(), refreshed.refreshToken());
+
+    // Reusing the first refresh token revokes the rotated one too
+    for (String refreshToken : List.of(login.refreshToken(), refreshed.refreshToken())) {
+      mockMvc
+          .perform(
+              MockMvcRequestBuilders.post("/v1/auth/refresh")
+                  .accept(MediaType.APPLICATION_JSON)
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(objectMapper.writeValueAsString(new RefreshRequestDTO(refreshToken))))
+          .andExpect(status().isUnauthorized());
+    }
+  }
+
+  @Test
+  @DisplayName("JWKS does not publish HMAC secrets")
+  void jwks() throws Exception {
+    // Get /.well-known/jwks.json
+    var result =
+        mockMvc
+            .perform(
+                MockMvcRequestBuilders.get("/v1/auth/.well-known/jwks.json")
+                    .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk());
+    // Parsing response
+    var content = result.andReturn().getResponse().getContentAsString();
+    JwksDTO response = objectMapper.readValue(content, JwksDTO.class);
+
+    // Checks
+    Assertions.assertTrue(response.keys().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Every social provider has its own instrumented connection pool")
+  void socialConnectionPools() {
+    for (String provider : List.of("google", "facebook", "default")) {
+      Assertions.assertEquals(
+          50.0, meterRegistry.get("social.http.pool.max").tag("provider", provider).gauge().value());
+      Assertions.assertNotNull(
+          meterRegistry.get("social.http.pool.lease").tag("provider", provider).timer());
+    }
+  }
+
+  @Test
+  @DisplayName("Users are read by email through the second level cache")
+  void secondLevelCache() throws Exception {
+    UserEntity user =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+    double hits = secondLevelCacheHits();
+
+    // Found by the uncached query first, then through the query cache
+    userService.get(email);
+    userService.get(email);
+    userService.get(email);
+    Assertions.assertTrue(secondLevelCacheHits() > hits);
+    Assertions.assertTrue(
+        meterRegistry
+                .get("hibernate.cache.query.requests")
+                .tag("result", "hit")
+                .functionCounter()
+                .count()
+            > 0);
+
+    // Logins are seen right away
+    Assertions.assertTrue(userService.registerLogin(user, 223456789));
+    Assertions.assertEquals(223456789, userService.get(email).getNonce());
+  }
+
+  @Test
+  @DisplayName("A login leaves the user in the second level cache for the next one")
+  void secondLevelCacheAfterLogin() throws Exception {
+    UserEntity user =
+        userMutationRepository.save(
+            GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true));
+    userService.get(email);
+
+    Assertions.assertTrue(userService.registerLogin(user, 223456789));
+    double hits = secondLevelCacheHits();
+    UserEntity loggedIn = userService.get(email);
+    Assertions.assertTrue(secondLevelCacheHits() > hits);
+    Assertions.assertEquals(223456789, loggedIn.getNonce());
+    Assertions.assertEquals(user.getNumLogins() + 1, loggedIn.getNumLogins());
+
+    Assertions.assertTrue(userService.registerLogin(loggedIn, 323456789));
+    hits = secondLevelCacheHits();
+    Assertions.assertEquals(323456789, userService.get(email).getNonce());
+    Assertions.assertTrue(secondLevelCacheHits() > hits);
+  }
+
+  private double secondLevelCacheHits() {
+    return meterRegistry
+        .get("hibernate.second.level.cache.requests")
+        .tag("region", "users")
+        .tag("result", "hit")
+        .functionCounter()
+        .count();
+  }
 }
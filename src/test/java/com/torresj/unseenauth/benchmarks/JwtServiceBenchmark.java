@@ -0,0 +1,101 @@
+package com.torresj.unseenauth.benchmarks;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenauth.dtos.AuthorizeResponseDTO;
+import com.torresj.unseenauth.services.JwtKeyManager;
+import com.torresj.unseenauth.services.JwtService;
+import com.torresj.unseenauth.services.JwtSigningKey;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static com.torresj.unseenauth.utils.TestUtils.GenerateJwtService;
+
+/**
+ * Compares JWT validation through the fast verifier, a parser built once and a parser built on
+ * every call, which is what JwtService used to do. Run it from the IDE or with the test classpath:
+ *
+ * <pre>java -cp target/test-classes:target/classes:... org.openjdk.jmh.Main JwtServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+  private static final String SECRET = "SecretKeyToGenerateAJSONWebTokens";
+  private static final String PREFIX = "Bearer";
+
+  private JwtService jwtService;
+  private String jwt;
+  private JwtParser parser;
+
+  @Setup
+  public void setUp() {
+    jwtService =
+        GenerateJwtService(
+            JwtKeyManager.fixed(JwtSigningKey.hmac(SECRET), "unseen"), "1000000", PREFIX, "unseen");
+    parser =
+        Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+            .build();
+    jwt = jwtService.generateJWT("test@test.com", AuthProvider.UNSEEN, Role.ADMIN);
+  }
+
+  @Benchmark
+  public AuthorizeResponseDTO validateWithFastVerifier() {
+    return jwtService.validateJWT(jwt);
+  }
+
+  @Benchmark
+  public AuthorizeResponseDTO validateWithCachedParser() {
+    var claims = parser.parseClaimsJws(jwt.replace(PREFIX, "")).getBody();
+    return new AuthorizeResponseDTO(claims.getSubject(), Role.valueOf((String) claims.get("role")));
+  }
+
+  @Benchmark
+  public AuthorizeResponseDTO validateWithPerCallParser() {
+    var claims =
+        Jwts.parserBuilder()
+            .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+            .build()
+            .parseClaimsJws(jwt.replace(PREFIX, ""))
+            .getBody();
+    return new AuthorizeResponseDTO(claims.getSubject(), Role.valueOf((String) claims.get("role")));
+  }
+
+  @Benchmark
+  public String generateWithCachedKey() {
+    return jwtService.generateJWT("test@test.com", AuthProvider.UNSEEN, Role.ADMIN);
+  }
+
+  @Benchmark
+  public String generateWithPerCallKey() {
+    return Jwts.builder()
+        .setIssuedAt(new Date())
+        .setIssuer("unseen")
+        .setSubject("test@test.com")
+        .setExpiration(new Date(System.currentTimeMillis() + 1000000))
+        .claim("role", Role.ADMIN.name())
+        .claim("Provider", AuthProvider.UNSEEN.name())
+        .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+        .compact();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(JwtServiceBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
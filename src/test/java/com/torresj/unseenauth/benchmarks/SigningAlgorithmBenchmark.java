@@ -0,0 +1,69 @@
+package com.torresj.unseenauth.benchmarks;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenauth.dtos.AuthorizeResponseDTO;
+import com.torresj.unseenauth.services.JwtKeyManager;
+import com.torresj.unseenauth.services.JwtService;
+import com.torresj.unseenauth.services.JwtSigningKey;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.torresj.unseenauth.utils.TestUtils.GenerateJwtService;
+
+/**
+ * Compares sign and verify cost of every supported signing algorithm against HS256. Run it from the
+ * IDE or with the test classpath:
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:... org.openjdk.jmh.Main SigningAlgorithmBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningAlgorithmBenchmark {
+
+  @Param({"HS256", "RS256", "ES256"})
+  private String algorithm;
+
+  private JwtService jwtService;
+  private String jwt;
+
+  @Setup
+  public void setUp() {
+    var signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+    var signingKey =
+        signatureAlgorithm.isHmac()
+            ? JwtSigningKey.hmac("SecretKeyToGenerateAJSONWebTokens")
+            : JwtSigningKey.generate("benchmark", signatureAlgorithm);
+    jwtService =
+        GenerateJwtService(
+            JwtKeyManager.fixed(signingKey, "unseen"), "1000000", "Bearer", "unseen");
+    jwt = jwtService.generateJWT("test@test.com", AuthProvider.UNSEEN, Role.ADMIN);
+  }
+
+  @Benchmark
+  public String sign() {
+    return jwtService.generateJWT("test@test.com", AuthProvider.UNSEEN, Role.ADMIN);
+  }
+
+  @Benchmark
+  public AuthorizeResponseDTO verify() {
+    return jwtService.validateJWT(jwt);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(SigningAlgorithmBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,152 @@
+package com.torresj.unseenauth.benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import com.torresj.unseenauth.UnseenAuthApplication;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Google logins through the whole service, to compare the Tomcat worker pool with virtual threads.
+ * The service runs with the test profile, on H2 and an embedded Tomcat, and the Google people API
+ * is a local stub that answers after providerMillis with the email carried in the access token.
+ * Each benchmark thread logs in its own user with increasing nonces, one login per operation, so
+ * every login reads and updates the user and calls the provider. The virtual model needs Java 21,
+ * pass -p threadModel=platform,virtual there. Run it with the test classpath, adding -prof gc to
+ * compare memory, and -Djdk.tracePinnedThreads=full to report virtual threads pinned while blocked:
+ *
+ * <pre>java -cp target/test-classes:target/classes:... org.openjdk.jmh.Main ThreadModelBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(64)
+@Fork(1)
+public class ThreadModelBenchmark {
+
+  @Param({"platform"})
+  private String threadModel;
+
+  @Param({"20"})
+  private long providerMillis;
+
+  private ExecutorService providerExecutor;
+  private HttpServer provider;
+  private ConfigurableApplicationContext context;
+  private HttpClient client;
+  private URI loginUri;
+
+  @State(Scope.Thread)
+  public static class User {
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    private final String email = "user" + USERS.incrementAndGet() + "@test.com";
+    private long nonce;
+    private int token;
+  }
+
+  @Setup
+  public void setUp() throws IOException {
+    String people;
+    try (InputStream json = getClass().getResourceAsStream("/people.json")) {
+      people = new String(json.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    // Tokens are email:counter, a new token per login so that no profile cache answers. Without
+    // nodelay, Nagle holds the response body until the client acknowledges the headers
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    providerExecutor = Executors.newCachedThreadPool();
+    provider = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+    provider.setExecutor(providerExecutor);
+    provider.createContext(
+        "/people",
+        exchange -> {
+          String token = exchange.getRequestHeaders().getFirst("Authorization").substring(7);
+          byte[] body =
+              people
+                  .replace("test@test.com", token.substring(0, token.indexOf(':')))
+                  .getBytes(StandardCharsets.UTF_8);
+          try {
+            Thread.sleep(providerMillis);
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.getResponseHeaders().set("Content-Type", "application/json");
+          exchange.sendResponseHeaders(200, body.length);
+          exchange.getResponseBody().write(body);
+          exchange.close();
+        });
+    provider.start();
+
+    context =
+        new SpringApplicationBuilder(UnseenAuthApplication.class)
+            .profiles("test")
+            .run(
+                "--server.port=0",
+                "--logging.level.root=warn",
+                "--logging.level.com.torresj=warn",
+                "--threads.virtual.enabled=" + "virtual".equals(threadModel),
+                "--social.http.max-connections=200",
+                "--social.guard.max-concurrent=200",
+                "--social.login.google.url=http://localhost:"
+                    + provider.getAddress().getPort()
+                    + "/people");
+    int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+    loginUri = URI.create("http://localhost:" + port + "/v1/auth/social/login");
+    client = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+    provider.stop(0);
+    providerExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public int login(User user) throws IOException, InterruptedException {
+    String body =
+        "{\"token\":\""
+            + user.email
+            + ":"
+            + ++user.token
+            + "\",\"provider\":\"GOOGLE\",\"nonce\":"
+            + ++user.nonce
+            + "}";
+    HttpResponse<String> response =
+        client.send(
+            HttpRequest.newBuilder(loginUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() != 200)
+      throw new IllegalStateException("Login failed: " + response.statusCode() + response.body());
+    return response.body().length();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ThreadModelBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
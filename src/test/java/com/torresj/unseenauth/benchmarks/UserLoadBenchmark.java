@@ -0,0 +1,79 @@
+package com.torresj.unseenauth.benchmarks;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseen.repositories.mutations.UserMutationRepository;
+import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenauth.UnseenAuthApplication;
+import com.torresj.unseenauth.dtos.UserCredentialsDTO;
+import com.torresj.unseenauth.repositories.queries.UserCredentialsQueryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.torresj.unseenauth.utils.TestUtils.GenerateUser;
+
+/**
+ * Compares loading a user for a credential check as a whole entity, as UserService.get does, with
+ * the credentials projection. Both run against the H2 database of the test profile, so the
+ * difference is JPA work and not the network. Run it with the test classpath, adding -prof gc to
+ * compare allocations:
+ *
+ * <pre>java -cp target/test-classes:target/classes:... org.openjdk.jmh.Main UserLoadBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserLoadBenchmark {
+
+  private static final String EMAIL = "test@test.com";
+
+  private ConfigurableApplicationContext context;
+  private UserQueryRepository userQueryRepository;
+  private UserCredentialsQueryRepository userCredentialsQueryRepository;
+
+  @Setup
+  public void setUp() {
+    context =
+        new SpringApplicationBuilder(UnseenAuthApplication.class)
+            .profiles("test")
+            .web(WebApplicationType.NONE)
+            .run();
+    userQueryRepository = context.getBean(UserQueryRepository.class);
+    userCredentialsQueryRepository = context.getBean(UserCredentialsQueryRepository.class);
+
+    context
+        .getBean(UserMutationRepository.class)
+        .save(GenerateUser(EMAIL, "test", Role.USER, AuthProvider.UNSEEN, true));
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public UserEntity loadEntity() {
+    return userQueryRepository.findByEmail(EMAIL).orElseThrow();
+  }
+
+  @Benchmark
+  public UserCredentialsDTO loadCredentials() {
+    return userCredentialsQueryRepository.findCredentialsByEmail(EMAIL).orElseThrow();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(UserLoadBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,78 @@
+package com.torresj.unseenauth.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+class AbortableRequestTest {
+
+  private final CountDownLatch received = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private HttpServer server;
+  private String url;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    // Never answers until the test ends
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(executor);
+    server.createContext(
+        "/",
+        exchange -> {
+          received.countDown();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+          }
+          exchange.close();
+        });
+    server.start();
+    url = "http://localhost:" + server.getAddress().getPort() + "/people";
+  }
+
+  @AfterEach
+  void tearDown() {
+    release.countDown();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Aborting a social request closes the exchange in flight")
+  void abort() throws Exception {
+    var requestFactory =
+        new RestTemplateConfig()
+            .socialRequestFactory(new MockEnvironment(), new SimpleMeterRegistry(), url, url, url);
+    var restTemplate = new RestTemplate(requestFactory);
+    var request = new AbortableRequest();
+
+    var response =
+        executor.submit(() -> request.run(() -> restTemplate.getForObject(url, String.class)));
+    Assertions.assertTrue(received.await(5, TimeUnit.SECONDS));
+    request.abort();
+
+    // Well before the 5 seconds read timeout
+    var exception =
+        Assertions.assertTimeoutPreemptively(
+            Duration.ofSeconds(2),
+            () -> Assertions.assertThrows(Exception.class, () -> response.get()));
+    Assertions.assertInstanceOf(ResourceAccessException.class, exception.getCause());
+  }
+}
@@ -0,0 +1,80 @@
+package com.torresj.unseenauth.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+class DataSourcePoolsTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  @DisplayName("Pools are named, configured and instrumented per datasource")
+  void pool() throws SQLException {
+    var environment =
+        new MockEnvironment()
+            .withProperty("spring.datasource.queries.hikari.maximum-pool-size", "4")
+            .withProperty("spring.datasource.queries.hikari.leak-detection-threshold", "5000");
+
+    try (var dataSource =
+        DataSourcePools.create(
+            "queries", properties("jdbc:h2:mem:pools"), environment, meterRegistry)) {
+      try (Connection connection = dataSource.getConnection()) {
+        Assertions.assertEquals("queries", dataSource.getPoolName());
+        Assertions.assertEquals(4, dataSource.getMaximumPoolSize());
+        Assertions.assertEquals(5000, dataSource.getLeakDetectionThreshold());
+        Assertions.assertEquals(2000, dataSource.getConnectionTimeout());
+        Assertions.assertEquals(
+            1.0,
+            meterRegistry
+                .get("hikaricp.connections.active")
+                .tag("pool", "queries")
+                .gauge()
+                .value());
+        Assertions.assertEquals(
+            1,
+            meterRegistry
+                .get("hikaricp.connections.acquire")
+                .tag("pool", "queries")
+                .timer()
+                .count());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("MariaDB pools use cached server-side prepared statements")
+  void mariadb() {
+    var environment =
+        new MockEnvironment()
+            .withProperty(
+                "spring.datasource.mutations.hikari.data-source-properties.prepStmtCacheSize",
+                "500");
+
+    try (var dataSource =
+        DataSourcePools.create(
+            "mutations",
+            properties("jdbc:mariadb://localhost:3306/unseen"),
+            environment,
+            meterRegistry)) {
+      var dataSourceProperties = dataSource.getDataSourceProperties();
+      Assertions.assertEquals("true", dataSourceProperties.get("useServerPrepStmts"));
+      Assertions.assertEquals("true", dataSourceProperties.get("cachePrepStmts"));
+      Assertions.assertEquals("500", dataSourceProperties.get("prepStmtCacheSize"));
+    }
+  }
+
+  private static DataSourceProperties properties(String url) {
+    var properties = new DataSourceProperties();
+    properties.setUrl(url);
+    properties.setUsername("test");
+    properties.setPassword("test");
+    return properties;
+  }
+}
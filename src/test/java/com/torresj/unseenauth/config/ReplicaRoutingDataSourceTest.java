@@ -0,0 +1,105 @@
+package com.torresj.unseenauth.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+class ReplicaRoutingDataSourceTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final DataSource primary = h2("primary");
+  private final DataSource replica = h2("replica");
+
+  @BeforeEach
+  void setUp() {
+    new JdbcTemplate(replica).execute("CREATE TABLE IF NOT EXISTS lag (seconds BIGINT)");
+    new JdbcTemplate(replica).execute("DELETE FROM lag");
+  }
+
+  @Test
+  @DisplayName("Reads go to the replica unless forced to the primary")
+  void routing() throws SQLException {
+    var dataSource = routingDataSource();
+
+    Assertions.assertEquals("REPLICA", database(dataSource));
+    Assertions.assertEquals(
+        "PRIMARY", ReplicaRoutingDataSource.readFromPrimary(() -> database(dataSource)));
+    Assertions.assertEquals("REPLICA", database(dataSource));
+    Assertions.assertEquals(
+        2.0,
+        meterRegistry
+            .get("datasource.routing.connections")
+            .tag("target", "replica")
+            .counter()
+            .count());
+  }
+
+  @Test
+  @DisplayName("Reads fail over to the primary while the replica is behind")
+  void lag() {
+    var dataSource = routingDataSource();
+    var jdbcTemplate = new JdbcTemplate(replica);
+
+    jdbcTemplate.update("INSERT INTO lag VALUES (5)");
+    dataSource.sampleLag();
+    Assertions.assertFalse(dataSource.isReplicaAvailable());
+    Assertions.assertEquals("PRIMARY", database(dataSource));
+    Assertions.assertEquals(5000.0, meterRegistry.get("datasource.replica.lag").gauge().value());
+
+    jdbcTemplate.update("UPDATE lag SET seconds = 1");
+    dataSource.sampleLag();
+    Assertions.assertTrue(dataSource.isReplicaAvailable());
+    Assertions.assertEquals("REPLICA", database(dataSource));
+
+    // Replication stopped
+    jdbcTemplate.update("UPDATE lag SET seconds = NULL");
+    dataSource.sampleLag();
+    Assertions.assertFalse(dataSource.isReplicaAvailable());
+    Assertions.assertTrue(
+        Double.isNaN(meterRegistry.get("datasource.replica.lag").gauge().value()));
+  }
+
+  @Test
+  @DisplayName("Replicas without replication status and unreadable lag")
+  void lagQuery() {
+    var dataSource = routingDataSource();
+    dataSource.sampleLag();
+    Assertions.assertTrue(dataSource.isReplicaAvailable());
+
+    var failing =
+        new ReplicaRoutingDataSource(
+            primary, replica, "SELECT * FROM missing", "seconds", 1000, meterRegistry);
+    failing.afterPropertiesSet();
+    failing.sampleLag();
+    Assertions.assertFalse(failing.isReplicaAvailable());
+  }
+
+  private ReplicaRoutingDataSource routingDataSource() {
+    var dataSource =
+        new ReplicaRoutingDataSource(
+            primary, replica, "SELECT seconds FROM lag", "seconds", 1000, meterRegistry);
+    dataSource.afterPropertiesSet();
+    return dataSource;
+  }
+
+  private static String database(DataSource dataSource) {
+    try (Connection connection = dataSource.getConnection()) {
+      return connection.getCatalog();
+    } catch (SQLException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  private static DataSource h2(String name) {
+    return new DriverManagerDataSource(
+        "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "test", "test");
+  }
+}
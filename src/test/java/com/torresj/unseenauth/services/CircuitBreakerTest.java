@@ -0,0 +1,59 @@
+package com.torresj.unseenauth.services;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+class CircuitBreakerTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final CircuitBreaker circuitBreaker = new CircuitBreaker(4, 50, 1000, now::get);
+
+  @Test
+  @DisplayName("Circuit opens when the failure rate reaches the threshold")
+  void open() {
+    call(true);
+    call(false);
+    call(false);
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+    call(true);
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    Assertions.assertFalse(circuitBreaker.tryAcquire());
+  }
+
+  @Test
+  @DisplayName("Only old failures leave the window")
+  void slidingWindow() {
+    call(true);
+    for (int i = 0; i < 10; i++) call(false);
+    call(true);
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+  }
+
+  @Test
+  @DisplayName("A single trial call closes or reopens the circuit")
+  void halfOpen() {
+    for (int i = 0; i < 4; i++) call(true);
+    now.addAndGet(1000);
+
+    Assertions.assertTrue(circuitBreaker.tryAcquire());
+    Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    Assertions.assertFalse(circuitBreaker.tryAcquire());
+    circuitBreaker.onFailure();
+    Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+    now.addAndGet(1000);
+    call(false);
+    Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    Assertions.assertTrue(circuitBreaker.tryAcquire());
+  }
+
+  private void call(boolean failure) {
+    Assertions.assertTrue(circuitBreaker.tryAcquire());
+    if (failure) circuitBreaker.onFailure();
+    else circuitBreaker.onSuccess();
+  }
+}
@@ -5,10 +5,11 @@ import com.torresj.unseen.entities.AuthProvider;
 import com.torresj.unseen.entities.Role;
 import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
-import com.torresj.unseenauth.dtos.LoginResponseDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
 import com.torresj.unseenauth.dtos.facebook.FacebookUser;
 import com.torresj.unseenauth.dtos.facebook.Picture;
 import com.torresj.unseenauth.exceptions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -23,6 +24,7 @@ import org.springframework.web.client.RestTemplate;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.Executors;
 
 import static com.torresj.unseenauth.utils.TestUtils.GenerateUser;
 import static org.mockito.Mockito.when;
@@ -44,7 +46,17 @@ class FacebookServiceTest {
 
   @BeforeEach
   void setUp() {
-    facebookService = new FacebookService(restTemplate, userService, jwtService, url, urlPicture);
+    facebookService =
+        new FacebookService(
+            restTemplate,
+            userService,
+            jwtService,
+            url,
+            urlPicture,
+            Executors.newFixedThreadPool(2),
+            new SocialProfileCache(false, 1, 1, new SimpleMeterRegistry()),
+            new SocialProviderGuard(false, 1, 1, 50, 1, new SimpleMeterRegistry()),
+            new SocialRequestHedger(null, false, 0.95, 1, 1, 0, new SimpleMeterRegistry()));
   }
 
   @Test
@@ -65,7 +77,7 @@ class FacebookServiceTest {
         .thenReturn(new ResponseEntity(picture, HttpStatus.OK));
     when(jwtService.generateJWT(email, AuthProvider.FACEBOOK, Role.USER)).thenReturn("JWT");
 
-    LoginResponseDTO response =
+    SocialLoginDTO response =
         facebookService.signIn(
             new AuthSocialTokenDTO("accessToken", AuthProvider.FACEBOOK, 123456789));
 
@@ -89,13 +101,14 @@ class FacebookServiceTest {
 
     // Mock call to facebook
     when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.registerLogin(userEntityMock, 323456789)).thenReturn(true);
     when(restTemplate.exchange(url + "accessToken", HttpMethod.GET, null, FacebookUser.class))
         .thenReturn(new ResponseEntity(facebookUser, HttpStatus.OK));
     when(restTemplate.exchange(urlPicture + "accessToken", HttpMethod.GET, null, Picture.class))
         .thenReturn(new ResponseEntity(picture, HttpStatus.OK));
     when(jwtService.generateJWT(email, AuthProvider.FACEBOOK, Role.USER)).thenReturn("JWT");
 
-    LoginResponseDTO response =
+    SocialLoginDTO response =
         facebookService.signIn(
             new AuthSocialTokenDTO("accessToken", AuthProvider.FACEBOOK, 323456789));
 
@@ -0,0 +1,91 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static com.torresj.unseenauth.utils.TestUtils.GenerateJwtService;
+
+@Slf4j
+class FastJwtVerifierTest {
+
+  private final String secret = "SecretKeyToGenerateAJSONWebTokens";
+  private final String issuer = "unseen";
+  private final String email = "test@test.com";
+  private final SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+  // Encoded {"alg":"HS256"}
+  private final String header = "eyJhbGciOiJIUzI1NiJ9";
+  private final FastJwtVerifier verifier = new FastJwtVerifier(key, header, issuer);
+
+  @Test
+  @DisplayName("Verify a token issued by JwtService")
+  void verifyIssuedToken() {
+    String jwt =
+        GenerateJwtService(
+                JwtKeyManager.fixed(JwtSigningKey.hmac(secret), issuer),
+                "1000000",
+                "Bearer",
+                issuer)
+            .generateJWT(email, AuthProvider.GOOGLE, Role.USER);
+
+    var result = verifier.verify(jwt);
+
+    Assertions.assertNotNull(result);
+    Assertions.assertEquals(email, result.authorization().email());
+    Assertions.assertEquals(Role.USER, result.authorization().role());
+    Assertions.assertTrue(result.expiresAt() > System.currentTimeMillis());
+  }
+
+  @Test
+  @DisplayName("Tampered signature is not verified")
+  void tamperedSignature() {
+    String jwt = generate(issuer, System.currentTimeMillis() + 100000);
+    // Not the last character, its low bits are padding and may be ignored on decoding
+    int index = jwt.length() - 10;
+    char c = jwt.charAt(index);
+    String tampered = jwt.substring(0, index) + (c == 'A' ? 'B' : 'A') + jwt.substring(index + 1);
+
+    Assertions.assertNull(verifier.verify(tampered));
+  }
+
+  @Test
+  @DisplayName("Expired token is not verified")
+  void expiredToken() {
+    Assertions.assertNull(verifier.verify(generate(issuer, System.currentTimeMillis() - 2000)));
+  }
+
+  @Test
+  @DisplayName("Token from other issuer is left to the full parser")
+  void otherIssuer() {
+    Assertions.assertNull(verifier.verify(generate("other", System.currentTimeMillis() + 100000)));
+  }
+
+  @Test
+  @DisplayName("Malformed token is left to the full parser")
+  void malformedToken() {
+    Assertions.assertNull(verifier.verify("not.a.jwt"));
+    Assertions.assertNull(verifier.verify("nodots"));
+    Assertions.assertNull(verifier.verify(""));
+  }
+
+  private String generate(String tokenIssuer, long expiration) {
+    return Jwts.builder()
+        .setIssuedAt(new Date())
+        .setIssuer(tokenIssuer)
+        .setSubject(email)
+        .setExpiration(new Date(expiration))
+        .claim("role", Role.ADMIN.toString())
+        .claim("Provider", AuthProvider.UNSEEN.toString())
+        .signWith(key)
+        .compact();
+  }
+}
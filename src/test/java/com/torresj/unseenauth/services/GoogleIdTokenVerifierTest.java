@@ -0,0 +1,176 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.dtos.google.JsonWebKey;
+import com.torresj.unseenauth.dtos.google.JsonWebKeySet;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GoogleIdTokenVerifierTest {
+
+  private final String keysUrl = "https://google.com/certs";
+  private final String clientId = "client";
+  private final String email = "test@test.com";
+  private final KeyPair keyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+  @Mock private RestTemplate restTemplate;
+  private GoogleIdTokenVerifier googleIdTokenVerifier;
+
+  @BeforeEach
+  void setUp() {
+    googleIdTokenVerifier = new GoogleIdTokenVerifier(restTemplate, true, clientId, keysUrl, 60000);
+    var headers = new HttpHeaders();
+    headers.setCacheControl("public, max-age=3600");
+    when(restTemplate.getForEntity(keysUrl, JsonWebKeySet.class))
+        .thenReturn(
+            new ResponseEntity<>(
+                new JsonWebKeySet(List.of(toJwk("key", keyPair))), headers, HttpStatus.OK));
+    googleIdTokenVerifier.refresh();
+  }
+
+  @Test
+  @DisplayName("Valid ID token is verified with the cached keys")
+  void validIdToken() throws InvalidAccessTokenException {
+    SocialProfileDTO profile =
+        googleIdTokenVerifier.verify(
+            idToken("key", keyPair, clientId, "https://accounts.google.com"));
+    googleIdTokenVerifier.verify(idToken("key", keyPair, clientId, "accounts.google.com"));
+
+    Assertions.assertEquals(new SocialProfileDTO(email, "test", "https://photo.com"), profile);
+
+    // Keys are not reloaded until they expire
+    googleIdTokenVerifier.refresh();
+    verify(restTemplate, times(1)).getForEntity(keysUrl, JsonWebKeySet.class);
+  }
+
+  @Test
+  @DisplayName("ID tokens for other clients or issuers are rejected")
+  void invalidClaims() {
+    Assertions.assertThrows(
+        InvalidAccessTokenException.class,
+        () ->
+            googleIdTokenVerifier.verify(
+                idToken("key", keyPair, "other", "https://accounts.google.com")));
+    Assertions.assertThrows(
+        InvalidAccessTokenException.class,
+        () -> googleIdTokenVerifier.verify(idToken("key", keyPair, clientId, "https://other.com")));
+  }
+
+  @Test
+  @DisplayName("ID tokens not signed by Google keys are rejected")
+  void invalidSignature() {
+    KeyPair otherKeyPair = Keys.keyPairFor(SignatureAlgorithm.RS256);
+
+    Assertions.assertThrows(
+        InvalidAccessTokenException.class,
+        () ->
+            googleIdTokenVerifier.verify(
+                idToken("key", otherKeyPair, clientId, "https://accounts.google.com")));
+    Assertions.assertThrows(
+        InvalidAccessTokenException.class,
+        () ->
+            googleIdTokenVerifier.verify(
+                idToken("other", otherKeyPair, clientId, "https://accounts.google.com")));
+  }
+
+  @Test
+  @DisplayName("Concurrent ID tokens with unknown keys reload the keys only once")
+  void unknownKeysReloadOnce() throws Exception {
+    var verifier = new GoogleIdTokenVerifier(restTemplate, true, clientId, keysUrl, 60000);
+    var keySet = new JsonWebKeySet(List.of(toJwk("key", keyPair)));
+    doAnswer(
+            invocation -> {
+              Thread.sleep(100);
+              return new ResponseEntity<>(keySet, new HttpHeaders(), HttpStatus.OK);
+            })
+        .when(restTemplate)
+        .getForEntity(keysUrl, JsonWebKeySet.class);
+
+    var executor = Executors.newFixedThreadPool(8);
+    var start = new CyclicBarrier(8);
+    try {
+      var results = new ArrayList<Future<?>>();
+      for (int i = 0; i < 8; i++) {
+        String idToken = idToken("unknown-" + i, keyPair, clientId, "https://accounts.google.com");
+        results.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return verifier.verify(idToken);
+                }));
+      }
+      for (Future<?> result : results)
+        Assertions.assertInstanceOf(
+            InvalidAccessTokenException.class,
+            Assertions.assertThrows(ExecutionException.class, result::get).getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // One load in setUp and one for all the unknown keys
+    verify(restTemplate, times(2)).getForEntity(keysUrl, JsonWebKeySet.class);
+  }
+
+  private String idToken(String kid, KeyPair keyPair, String audience, String issuer) {
+    return Jwts.builder()
+        .setHeaderParam("kid", kid)
+        .setIssuer(issuer)
+        .setAudience(audience)
+        .setSubject("123")
+        .claim("email", email)
+        .claim("email_verified", true)
+        .claim("name", "test")
+        .claim("picture", "https://photo.com")
+        .setExpiration(new Date(System.currentTimeMillis() + 60000))
+        .signWith(keyPair.getPrivate(), SignatureAlgorithm.RS256)
+        .compact();
+  }
+
+  private static JsonWebKey toJwk(String kid, KeyPair keyPair) {
+    var publicKey = (RSAPublicKey) keyPair.getPublic();
+    return new JsonWebKey(
+        kid,
+        "RSA",
+        "RS256",
+        base64Url(publicKey.getModulus()),
+        base64Url(publicKey.getPublicExponent()));
+  }
+
+  private static String base64Url(BigInteger value) {
+    byte[] bytes = value.toByteArray();
+    // Unsigned big-endian, without the sign byte
+    if (bytes[0] == 0) bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+}
@@ -5,9 +5,10 @@ import com.torresj.unseen.entities.AuthProvider;
 import com.torresj.unseen.entities.Role;
 import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
-import com.torresj.unseenauth.dtos.LoginResponseDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
 import com.torresj.unseenauth.dtos.google.People;
 import com.torresj.unseenauth.exceptions.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -40,7 +41,16 @@ class GoogleServiceTest {
 
   @BeforeEach
   void setUp() {
-    googleService = new GoogleService(restTemplate, userService, jwtService, url);
+    googleService =
+        new GoogleService(
+            restTemplate,
+            userService,
+            jwtService,
+            url,
+            new SocialProfileCache(false, 1, 1, new SimpleMeterRegistry()),
+            new SocialProviderGuard(false, 1, 1, 50, 1, new SimpleMeterRegistry()),
+            new GoogleIdTokenVerifier(restTemplate, false, "", "", 60000),
+            new SocialRequestHedger(null, false, 0.95, 1, 1, 0, new SimpleMeterRegistry()));
   }
 
   @Test
@@ -58,7 +68,7 @@ class GoogleServiceTest {
         .thenReturn(new ResponseEntity(people, HttpStatus.OK));
     when(jwtService.generateJWT(email, AuthProvider.GOOGLE, Role.USER)).thenReturn("JWT");
 
-    LoginResponseDTO response =
+    SocialLoginDTO response =
         googleService.signIn(new AuthSocialTokenDTO("accessToken", AuthProvider.GOOGLE, 123456789));
 
     Assertions.assertEquals("JWT", response.jwt());
@@ -79,11 +89,12 @@ class GoogleServiceTest {
     var headers = new HttpHeaders();
     headers.set("Authorization", "Bearer accessToken");
     when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.registerLogin(userEntityMock, 323456789)).thenReturn(true);
     when(restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<String>(headers), People.class))
         .thenReturn(new ResponseEntity(people, HttpStatus.OK));
     when(jwtService.generateJWT(email, AuthProvider.GOOGLE, Role.USER)).thenReturn("JWT");
 
-    LoginResponseDTO response =
+    SocialLoginDTO response =
         googleService.signIn(new AuthSocialTokenDTO("accessToken", AuthProvider.GOOGLE, 323456789));
 
     Assertions.assertEquals("JWT", response.jwt());
@@ -0,0 +1,125 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static com.torresj.unseenauth.utils.TestUtils.GenerateJwtService;
+
+class JwtKeyManagerTest {
+
+  private final String secret = "SecretKeyToGenerateAJSONWebTokens";
+  private final String ringSecret = "AnotherSecretKeyToGenerateAJSONWebTokens";
+  private final String expiration = "600000";
+  private final String issuer = "unseen";
+  private final String email = "test@test.com";
+  private final long activationDelay = 300000;
+  private final JwtSigningKey defaultKey = JwtSigningKey.hmac(secret);
+
+  @Test
+  @DisplayName("Default key signs when there is no key ring")
+  void defaultKey() {
+    var keyManager =
+        new JwtKeyManager(defaultKey, expiration, issuer, activationDelay, new MockEnvironment());
+
+    Assertions.assertEquals(defaultKey, keyManager.current().activeKey());
+    Assertions.assertEquals(1, keyManager.current().verificationKeys().size());
+  }
+
+  @Test
+  @DisplayName("Rotated key signs and old tokens are still valid")
+  void rotatedKey() {
+    var environment = new MockEnvironment();
+    var keyManager = new JwtKeyManager(defaultKey, expiration, issuer, activationDelay, environment);
+    var jwtService = GenerateJwtService(keyManager, expiration, "Bearer", issuer);
+    String oldJwt = jwtService.generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN);
+
+    // Rotate
+    environment
+        .withProperty("jwt.keys[0].id", "key-2")
+        .withProperty("jwt.keys[0].secret", ringSecret)
+        .withProperty("jwt.keys[0].activate-at", Instant.now().minusSeconds(60).toString());
+    keyManager.reload();
+    String newJwt = jwtService.generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN);
+
+    Assertions.assertEquals("key-2", keyManager.current().activeKey().keyId());
+    Assertions.assertEquals(2, keyManager.current().verificationKeys().size());
+    Assertions.assertEquals(email, jwtService.validateJWT(oldJwt).email());
+    Assertions.assertEquals(email, jwtService.validateJWT(newJwt).email());
+    Assertions.assertNotNull(keyManager.current().fastVerifier(newJwt).verify(newJwt));
+  }
+
+  @Test
+  @DisplayName("Old key retires after the longest token expiration")
+  void retiredKey() {
+    var environment =
+        new MockEnvironment()
+            .withProperty("jwt.keys[0].id", "key-2")
+            .withProperty("jwt.keys[0].secret", ringSecret)
+            .withProperty(
+                "jwt.keys[0].activate-at", Instant.now().minus(1, ChronoUnit.DAYS).toString());
+    var oldJwt =
+        GenerateJwtService(JwtKeyManager.fixed(defaultKey, issuer), expiration, "Bearer", issuer)
+            .generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN);
+
+    var keyManager = new JwtKeyManager(defaultKey, expiration, issuer, activationDelay, environment);
+    var jwtService = GenerateJwtService(keyManager, expiration, "Bearer", issuer);
+
+    Assertions.assertEquals(1, keyManager.current().verificationKeys().size());
+    Assertions.assertThrows(SignatureException.class, () -> jwtService.validateJWT(oldJwt));
+  }
+
+  @Test
+  @DisplayName("Scheduled key is published before it signs")
+  void scheduledKey() {
+    var environment =
+        new MockEnvironment()
+            .withProperty("jwt.keys[0].id", "key-2")
+            .withProperty("jwt.keys[0].secret", ringSecret)
+            .withProperty(
+                "jwt.keys[0].activate-at", Instant.now().plus(1, ChronoUnit.DAYS).toString());
+
+    var keyManager = new JwtKeyManager(defaultKey, expiration, issuer, activationDelay, environment);
+
+    Assertions.assertEquals(defaultKey, keyManager.current().activeKey());
+    Assertions.assertEquals(2, keyManager.current().verificationKeys().size());
+  }
+
+  @Test
+  @DisplayName("Key without activation date signs after the activation delay")
+  void keyWithoutActivation() {
+    var environment =
+        new MockEnvironment()
+            .withProperty("jwt.keys[0].id", "key-2")
+            .withProperty("jwt.keys[0].secret", ringSecret);
+
+    var keyManager = new JwtKeyManager(defaultKey, expiration, issuer, activationDelay, environment);
+
+    Assertions.assertEquals(defaultKey, keyManager.current().activeKey());
+    Assertions.assertEquals(2, keyManager.current().verificationKeys().size());
+
+    var immediate = new JwtKeyManager(defaultKey, expiration, issuer, 0, environment);
+
+    Assertions.assertEquals("key-2", immediate.current().activeKey().keyId());
+  }
+
+  @Test
+  @DisplayName("Asymmetric key without a PEM key pair fails")
+  void asymmetricKeyWithoutPem() {
+    var environment =
+        new MockEnvironment()
+            .withProperty("jwt.keys[0].id", "key-2")
+            .withProperty("jwt.keys[0].algorithm", "RS256");
+
+    Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> new JwtKeyManager(defaultKey, expiration, issuer, activationDelay, environment));
+  }
+}
@@ -0,0 +1,64 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.repositories.queries.UserEmailQueryRepository;
+import com.torresj.unseenauth.repositories.queries.UserEmailQueryRepository.UserEmail;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KnownEmailFilterTest {
+
+  @Mock private UserEmailQueryRepository userEmailQueryRepository;
+
+  @Test
+  @DisplayName("Users committed after a higher id are added on the next sync")
+  void syncOutOfOrder() {
+    var knownEmailFilter = new KnownEmailFilter(userEmailQueryRepository, true, 100, 10);
+    var first = user(1L, "first@test.com");
+    var second = user(2L, "second@test.com");
+    when(userEmailQueryRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+        .thenReturn(List.of(second))
+        .thenReturn(List.of(first, second));
+
+    knownEmailFilter.sync();
+    Assertions.assertFalse(knownEmailFilter.mightExist("first@test.com"));
+
+    knownEmailFilter.sync();
+    Assertions.assertTrue(knownEmailFilter.mightExist("first@test.com"));
+    Assertions.assertTrue(knownEmailFilter.mightExist("second@test.com"));
+  }
+
+  @Test
+  @DisplayName("Rescan reads users below the sync overlap again")
+  void rescan() {
+    var knownEmailFilter = new KnownEmailFilter(userEmailQueryRepository, true, 100, 0);
+    var first = user(1L, "first@test.com");
+    var second = user(2L, "second@test.com");
+    when(userEmailQueryRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+        .thenReturn(List.of(second))
+        .thenReturn(List.of(first, second));
+
+    knownEmailFilter.sync();
+    knownEmailFilter.rescan();
+
+    Assertions.assertTrue(knownEmailFilter.mightExist("first@test.com"));
+  }
+
+  private static UserEmail user(long id, String email) {
+    UserEmail user = Mockito.mock(UserEmail.class);
+    when(user.getId()).thenReturn(id);
+    when(user.getEmail()).thenReturn(email);
+    return user;
+  }
+}
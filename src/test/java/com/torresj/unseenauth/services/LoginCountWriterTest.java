@@ -0,0 +1,67 @@
+package com.torresj.unseenauth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LoginCountWriterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @Test
+  @DisplayName("Logins of the same user are written as one batched update")
+  @SuppressWarnings("unchecked")
+  void flush() {
+    var writer = new LoginCountWriter(jdbcTemplate, true, 100, meterRegistry);
+
+    writer.increment(1);
+    writer.increment(1);
+    writer.increment(2);
+    Assertions.assertEquals(2.0, meterRegistry.get("users.login-count.backlog").gauge().value());
+
+    writer.flush();
+
+    ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+    var counts = captor.getValue();
+    Assertions.assertEquals(2, counts.size());
+    Assertions.assertTrue(
+        counts.stream().anyMatch(row -> row[0].equals(2) && row[1].equals(1L)),
+        "Logins of user 1 should be added up");
+    Assertions.assertEquals(0.0, meterRegistry.get("users.login-count.backlog").gauge().value());
+    Assertions.assertEquals(1, meterRegistry.get("users.login-count.batch.size").summary().count());
+  }
+
+  @Test
+  @DisplayName("Counts are kept when the batch fails")
+  void flushError() {
+    var writer = new LoginCountWriter(jdbcTemplate, true, 100, meterRegistry);
+    when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+        .thenThrow(new DataAccessResourceFailureException("Database down"));
+
+    writer.increment(1);
+    writer.flush();
+
+    Assertions.assertEquals(1.0, meterRegistry.get("users.login-count.backlog").gauge().value());
+    writer.flush();
+    verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+  }
+}
@@ -4,17 +4,26 @@ import com.torresj.unseen.entities.AuthProvider;
 import com.torresj.unseen.entities.Role;
 import com.torresj.unseen.entities.UserEntity;
 import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
+import com.torresj.unseenauth.dtos.AuthorizeResponseDTO;
+import com.torresj.unseenauth.dtos.AuthorizeResultDTO;
 import com.torresj.unseenauth.dtos.LoginResponseDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
+import com.torresj.unseenauth.dtos.RefreshedTokenDTO;
 import com.torresj.unseenauth.dtos.UnseenLoginDTO;
+import com.torresj.unseenauth.dtos.UserCredentialsDTO;
 import com.torresj.unseenauth.exceptions.*;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
 import java.util.Map;
 
 import static com.torresj.unseenauth.utils.TestUtils.GenerateUser;
@@ -30,13 +39,18 @@ class LoginServiceTest {
   @Mock private JwtService jwtService;
   @Mock private GoogleService googleService;
   @Mock private FacebookService facebookService;
+  @Mock private RefreshTokenService refreshTokenService;
   private LoginService loginService;
 
   @BeforeEach
   void setUp() {
     loginService =
         new LoginService(
-            userService, jwtService, Map.of("GOOGLE", googleService, "FACEBOOK", facebookService));
+            userService,
+            jwtService,
+            Map.of("GOOGLE", googleService, "FACEBOOK", facebookService),
+            refreshTokenService,
+            new SocialLoginCoalescer(true, new SimpleMeterRegistry()));
   }
 
   @Test
@@ -48,7 +62,9 @@ class LoginServiceTest {
         GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
+    when(userService.registerLogin(UserCredentialsDTO.from(userEntityMock), 223456789))
+        .thenReturn(true);
     when(jwtService.generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN)).thenReturn("JWT");
 
     LoginResponseDTO response =
@@ -66,7 +82,9 @@ class LoginServiceTest {
         GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
+    when(userService.registerLogin(UserCredentialsDTO.from(userEntityMock), 223456789))
+        .thenReturn(true);
     when(jwtService.generateJWT(email, AuthProvider.UNSEEN, Role.ADMIN)).thenReturn("JWT");
 
     LoginResponseDTO response =
@@ -82,7 +100,7 @@ class LoginServiceTest {
           SocialAPIException, ProviderImplementationNotFoundException {
 
     // Mocks
-    when(googleService.signIn(any())).thenReturn(new LoginResponseDTO("JWT", email));
+    when(googleService.signIn(any())).thenReturn(new SocialLoginDTO("JWT", email, Role.USER));
 
     LoginResponseDTO response =
         loginService.socialLogin(
@@ -98,7 +116,7 @@ class LoginServiceTest {
           SocialAPIException, ProviderImplementationNotFoundException {
 
     // Mocks
-    when(facebookService.signIn(any())).thenReturn(new LoginResponseDTO("JWT", email));
+    when(facebookService.signIn(any())).thenReturn(new SocialLoginDTO("JWT", email, Role.USER));
 
     LoginResponseDTO response =
         loginService.socialLogin(
@@ -107,13 +125,31 @@ class LoginServiceTest {
     Assertions.assertEquals("JWT", response.jwt());
   }
 
+  @Test
+  @DisplayName("Social Login refresh token has the role of the sign in")
+  void socialLoginRefreshToken()
+      throws NonceAlreadyUsedException, UserInOtherProviderException, InvalidAccessTokenException,
+          SocialAPIException, ProviderImplementationNotFoundException {
+
+    // Mocks
+    when(googleService.signIn(any())).thenReturn(new SocialLoginDTO("JWT", email, Role.USER));
+    when(refreshTokenService.issue(email, AuthProvider.GOOGLE, Role.USER)).thenReturn("refresh");
+
+    LoginResponseDTO response =
+        loginService.socialLogin(
+            new AuthSocialTokenDTO("accessToken", AuthProvider.GOOGLE, 12345678));
+
+    Assertions.assertEquals("refresh", response.refreshToken());
+    Mockito.verifyNoInteractions(jwtService);
+  }
+
   @Test
   @DisplayName("Dashboard Login with no admin user")
   void noAdminUserDashboardUnseenLogin() throws UserNotFoundException {
     UserEntity userEntityMock = GenerateUser(email, password, Role.USER, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
 
     Assertions.assertThrows(
         UserNotAnAdminException.class,
@@ -128,7 +164,7 @@ class LoginServiceTest {
         GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
 
     Assertions.assertThrows(
         NonceAlreadyUsedException.class,
@@ -140,7 +176,7 @@ class LoginServiceTest {
   @DisplayName("Unseen Login with an invalid user")
   void invalidUserUnseenLogin() throws UserNotFoundException {
     // Mocks
-    when(userService.get(email)).thenThrow(new UserNotFoundException());
+    when(userService.getCredentials(email)).thenThrow(new UserNotFoundException());
 
     Assertions.assertThrows(
         UserNotFoundException.class,
@@ -154,7 +190,7 @@ class LoginServiceTest {
     UserEntity userEntityMock = GenerateUser(email, "", Role.ADMIN, AuthProvider.UNSEEN, true);
 
     // Mocks
-    when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
 
     Assertions.assertThrows(
         InvalidPasswordException.class,
@@ -169,7 +205,7 @@ class LoginServiceTest {
         GenerateUser(email, password, Role.ADMIN, AuthProvider.GOOGLE, true);
 
     // Mocks
-    when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
 
     Assertions.assertThrows(
         UserInOtherProviderException.class,
@@ -184,11 +220,61 @@ class LoginServiceTest {
         GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, false);
 
     // Mocks
-    when(userService.get(email)).thenReturn(userEntityMock);
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
 
     Assertions.assertThrows(
         UserNotValidatedException.class,
         () -> loginService.unseenLogin(new UnseenLoginDTO(email, password, 223456789)),
         "User not validated exception should be thrown");
   }
+
+  @Test
+  @DisplayName("Batch authorize with valid and invalid tokens")
+  void batchAuthorize() {
+    // Mocks
+    when(jwtService.validateJWT("valid")).thenReturn(new AuthorizeResponseDTO(email, Role.USER));
+    when(jwtService.validateJWT("invalid")).thenThrow(new SignatureException("Invalid signature"));
+
+    List<AuthorizeResultDTO> results = loginService.authorize(List.of("valid", "invalid"));
+
+    Assertions.assertEquals(2, results.size());
+    Assertions.assertTrue(results.get(0).valid());
+    Assertions.assertEquals(email, results.get(0).email());
+    Assertions.assertEquals(Role.USER, results.get(0).role());
+    Assertions.assertFalse(results.get(1).valid());
+    Assertions.assertEquals("Invalid signature", results.get(1).reason());
+  }
+
+  @Test
+  @DisplayName("Refresh issues a JWT without loading the user")
+  void refresh() throws InvalidRefreshTokenException {
+    // Mocks
+    when(refreshTokenService.rotate("refresh"))
+        .thenReturn(new RefreshedTokenDTO("rotated", email, AuthProvider.GOOGLE, Role.USER));
+    when(jwtService.generateJWT(email, AuthProvider.GOOGLE, Role.USER)).thenReturn("JWT");
+
+    LoginResponseDTO response = loginService.refresh("refresh");
+
+    Assertions.assertEquals("JWT", response.jwt());
+    Assertions.assertEquals("rotated", response.refreshToken());
+    Mockito.verifyNoInteractions(userService);
+  }
+
+  @Test
+  @DisplayName("Nonce used by a concurrent login")
+  void concurrentNonceUnseenLogin() throws UserNotFoundException {
+    UserEntity userEntityMock =
+        GenerateUser(email, password, Role.ADMIN, AuthProvider.UNSEEN, true);
+
+    // Mocks
+    when(userService.getCredentials(email)).thenReturn(UserCredentialsDTO.from(userEntityMock));
+    when(userService.registerLogin(UserCredentialsDTO.from(userEntityMock), 223456789))
+        .thenReturn(false);
+
+    Assertions.assertThrows(
+        NonceAlreadyUsedException.class,
+        () -> loginService.unseenLogin(new UnseenLoginDTO(email, password, 223456789)),
+        "Nonce already used exception should be thrown");
+    Mockito.verifyNoInteractions(jwtService);
+  }
 }
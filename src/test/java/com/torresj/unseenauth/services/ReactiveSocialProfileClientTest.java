@@ -0,0 +1,146 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+class ReactiveSocialProfileClientTest {
+
+  private static final String RESOURCE_PATH = "src/test/resources";
+
+  private final String googleUrl = "https://google.com";
+  private final String facebookUrl = "https://facebook.com?token=";
+  private final String facebookPictureUrl = "https://facebook.com/picture?token=";
+
+  @Test
+  @DisplayName("Google profile is resolved from the People API")
+  void googleProfile() throws IOException {
+    var client = client(Map.of(googleUrl, json("people.json")));
+
+    SocialProfileDTO profile = client.getProfile(AuthProvider.GOOGLE, "token").block();
+
+    Assertions.assertEquals("test@test.com", profile.email());
+  }
+
+  @Test
+  @DisplayName("Facebook profile is resolved from user and picture")
+  void facebookProfile() throws IOException {
+    var client =
+        client(
+            Map.of(
+                facebookUrl + "token", json("facebookUser.json"),
+                facebookPictureUrl + "token", json("facebookPicture.json")));
+
+    SocialProfileDTO profile = client.getProfile(AuthProvider.FACEBOOK, "token").block();
+
+    Assertions.assertEquals("test@test.com", profile.email());
+    Assertions.assertNotNull(profile.photoUrl());
+  }
+
+  @Test
+  @DisplayName("Provider client errors and blank tokens are rejected")
+  void errors() {
+    var client = client(Map.of());
+
+    Assertions.assertThrows(
+        SocialAPIException.class,
+        () -> blockChecked(client.getProfile(AuthProvider.GOOGLE, "token")));
+    Assertions.assertThrows(
+        InvalidAccessTokenException.class,
+        () -> blockChecked(client.getProfile(AuthProvider.GOOGLE, " ")));
+  }
+
+  @Test
+  @DisplayName("Provider server, connection and timeout errors are SocialAPIException")
+  void providerFailures() {
+    List<Mono<ClientResponse>> failures =
+        List.of(
+            Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()),
+            Mono.just(
+                ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body("{")
+                    .build()),
+            Mono.error(new IOException("Connection reset")),
+            Mono.error(new TimeoutException()));
+
+    for (Mono<ClientResponse> failure : failures) {
+      var client = client(request -> failure);
+      Assertions.assertThrows(
+          SocialAPIException.class,
+          () -> blockChecked(client.getProfile(AuthProvider.GOOGLE, "token")));
+    }
+  }
+
+  @Test
+  @DisplayName("Facebook tokens are encoded in the URL")
+  void facebookTokenEncoded() throws IOException {
+    var client =
+        client(
+            Map.of(
+                facebookUrl + "a%20b%7Cc", json("facebookUser.json"),
+                facebookPictureUrl + "a%20b%7Cc", json("facebookPicture.json")));
+
+    SocialProfileDTO profile = client.getProfile(AuthProvider.FACEBOOK, "a b|c").block();
+
+    Assertions.assertEquals("test@test.com", profile.email());
+  }
+
+  // Unknown URLs answer 401
+  private ReactiveSocialProfileClient client(Map<String, String> responses) {
+    return client(
+        request -> {
+          String body = responses.get(request.url().toString());
+          if (body == null)
+            return Mono.just(ClientResponse.create(HttpStatus.UNAUTHORIZED).build());
+          return Mono.just(
+              ClientResponse.create(HttpStatus.OK)
+                  .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                  .body(body)
+                  .build());
+        });
+  }
+
+  private ReactiveSocialProfileClient client(ExchangeFunction exchangeFunction) {
+    var webClient = WebClient.builder().exchangeFunction(exchangeFunction).build();
+    return new ReactiveSocialProfileClient(
+        webClient,
+        new GoogleIdTokenVerifier(null, false, "", "", 60000),
+        googleUrl,
+        facebookUrl,
+        facebookPictureUrl);
+  }
+
+  private static String json(String file) throws IOException {
+    return Files.readString(Path.of(RESOURCE_PATH, file));
+  }
+
+  // Mono.block wraps checked exceptions
+  private static <T> T blockChecked(Mono<T> mono) throws Exception {
+    try {
+      return mono.block();
+    } catch (RuntimeException exception) {
+      if (exception.getCause() instanceof Exception cause
+          && !(exception.getCause() instanceof RuntimeException)) throw cause;
+      throw exception;
+    }
+  }
+}
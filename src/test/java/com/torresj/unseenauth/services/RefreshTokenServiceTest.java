@@ -0,0 +1,116 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenauth.entities.RefreshTokenEntity;
+import com.torresj.unseenauth.exceptions.InvalidRefreshTokenException;
+import com.torresj.unseenauth.repositories.mutations.RefreshTokenMutationRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+  private final String email = "test@test.com";
+
+  @Mock private RefreshTokenMutationRepository refreshTokenMutationRepository;
+  private RefreshTokenService refreshTokenService;
+
+  @BeforeEach
+  void setUp() {
+    refreshTokenService = new RefreshTokenService(refreshTokenMutationRepository, true, 60000);
+  }
+
+  @Test
+  @DisplayName("Refresh token is rotated in the same family")
+  void rotate() throws InvalidRefreshTokenException {
+    RefreshTokenEntity stored = issue();
+    when(refreshTokenMutationRepository.findByTokenHash(any())).thenReturn(Optional.of(stored));
+    when(refreshTokenMutationRepository.markUsed(stored.getId())).thenReturn(1);
+
+    var refreshed = refreshTokenService.rotate("refresh");
+
+    Assertions.assertNotEquals("refresh", refreshed.refreshToken());
+    Assertions.assertEquals(email, refreshed.email());
+    Assertions.assertEquals(AuthProvider.UNSEEN, refreshed.provider());
+    Assertions.assertEquals(Role.ADMIN, refreshed.role());
+    var captor = ArgumentCaptor.forClass(RefreshTokenEntity.class);
+    verify(refreshTokenMutationRepository, times(2)).save(captor.capture());
+    Assertions.assertEquals(stored.getFamily(), captor.getValue().getFamily());
+  }
+
+  @Test
+  @DisplayName("Rotation does not extend the family expiration")
+  void rotateKeepsFamilyExpiration() throws InvalidRefreshTokenException {
+    RefreshTokenEntity stored = issue();
+    Instant familyExpiresAt = Instant.now().plusSeconds(10);
+    stored.setFamilyExpiresAt(familyExpiresAt);
+    when(refreshTokenMutationRepository.findByTokenHash(any())).thenReturn(Optional.of(stored));
+    when(refreshTokenMutationRepository.markUsed(stored.getId())).thenReturn(1);
+
+    refreshTokenService.rotate("refresh");
+
+    var captor = ArgumentCaptor.forClass(RefreshTokenEntity.class);
+    verify(refreshTokenMutationRepository, times(2)).save(captor.capture());
+    Assertions.assertEquals(familyExpiresAt, captor.getValue().getExpiresAt());
+    Assertions.assertEquals(familyExpiresAt, captor.getValue().getFamilyExpiresAt());
+  }
+
+  @Test
+  @DisplayName("Reused refresh token revokes its family")
+  void reuse() {
+    RefreshTokenEntity stored = issue();
+    stored.setUsed(true);
+    when(refreshTokenMutationRepository.findByTokenHash(any())).thenReturn(Optional.of(stored));
+
+    Assertions.assertThrows(
+        InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("refresh"));
+    verify(refreshTokenMutationRepository).deleteByFamily(stored.getFamily());
+  }
+
+  @Test
+  @DisplayName("Unknown or expired refresh token")
+  void invalidRefreshToken() {
+    when(refreshTokenMutationRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+    Assertions.assertThrows(
+        InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("unknown"));
+
+    RefreshTokenEntity stored = issue();
+    stored.setExpiresAt(Instant.now().minusSeconds(1));
+    when(refreshTokenMutationRepository.findByTokenHash(any())).thenReturn(Optional.of(stored));
+    Assertions.assertThrows(
+        InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("expired"));
+  }
+
+  @Test
+  @DisplayName("Disabled refresh tokens")
+  void refreshDisabled() {
+    var disabled = new RefreshTokenService(refreshTokenMutationRepository, false, 60000);
+
+    Assertions.assertNull(disabled.issue(email, AuthProvider.UNSEEN, Role.ADMIN));
+    Assertions.assertThrows(IllegalStateException.class, () -> disabled.rotate("refresh"));
+  }
+
+  private RefreshTokenEntity issue() {
+    Assertions.assertNotNull(refreshTokenService.issue(email, AuthProvider.UNSEEN, Role.ADMIN));
+    var captor = ArgumentCaptor.forClass(RefreshTokenEntity.class);
+    verify(refreshTokenMutationRepository).save(captor.capture());
+    RefreshTokenEntity stored = captor.getValue();
+    stored.setId(1L);
+    return stored;
+  }
+}
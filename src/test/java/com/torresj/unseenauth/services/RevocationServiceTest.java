@@ -0,0 +1,113 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseenauth.entities.RevokedTokenEntity;
+import com.torresj.unseenauth.repositories.mutations.RevokedTokenMutationRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RevocationServiceTest {
+
+  @Mock private RevokedTokenMutationRepository revokedTokenMutationRepository;
+
+  @Test
+  @DisplayName("Revoked token is revoked until it expires")
+  void revoke() {
+    var revocationService = new RevocationService(revokedTokenMutationRepository, true, 100, 60000);
+    long now = System.currentTimeMillis();
+
+    revocationService.revoke("revoked", now + 60000);
+    revocationService.revoke("expired", now - 1);
+
+    Assertions.assertTrue(revocationService.isRevoked("revoked"));
+    Assertions.assertFalse(revocationService.isRevoked("expired"));
+    Assertions.assertFalse(revocationService.isRevoked("unknown"));
+    Assertions.assertFalse(revocationService.isRevoked(null));
+  }
+
+  @Test
+  @DisplayName("Revocations from other instances are loaded at startup")
+  void load() {
+    var revocationService = new RevocationService(revokedTokenMutationRepository, true, 100, 60000);
+    when(revokedTokenMutationRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+            anyLong(), any(), any()))
+        .thenReturn(
+            List.of(
+                new RevokedTokenEntity(
+                    1L, "revoked", Instant.now().plusSeconds(60), Instant.now())));
+
+    revocationService.load();
+
+    Assertions.assertTrue(revocationService.isRevoked("revoked"));
+  }
+
+  @Test
+  @DisplayName("Sync only reads revocations created since the last sync, minus the overlap")
+  void sync() {
+    var revocationService = new RevocationService(revokedTokenMutationRepository, true, 100, 60000);
+    revocationService.load();
+    // Created before the load started, but committed after it
+    var createdAt = Instant.now().minusSeconds(1);
+    when(revokedTokenMutationRepository
+            .findByCreatedAtAfterAndExpiresAtAfterOrderByCreatedAtAscIdAsc(any(), any(), any()))
+        .thenReturn(
+            List.of(new RevokedTokenEntity(1L, "late", Instant.now().plusSeconds(60), createdAt)));
+
+    revocationService.sync();
+
+    var since = ArgumentCaptor.forClass(Instant.class);
+    verify(revokedTokenMutationRepository)
+        .findByCreatedAtAfterAndExpiresAtAfterOrderByCreatedAtAscIdAsc(
+            since.capture(), any(), any());
+    Assertions.assertTrue(since.getValue().isBefore(createdAt));
+    Assertions.assertTrue(revocationService.isRevoked("late"));
+    // Only the startup load reads every revocation
+    verify(revokedTokenMutationRepository, times(1))
+        .findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(anyLong(), any(), any());
+  }
+
+  @Test
+  @DisplayName("Purge reads every unexpired revocation again")
+  void purge() {
+    var revocationService = new RevocationService(revokedTokenMutationRepository, true, 100, 60000);
+    revocationService.load();
+    when(revokedTokenMutationRepository.findByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(
+            anyLong(), any(), any()))
+        .thenReturn(
+            List.of(
+                new RevokedTokenEntity(
+                    1L,
+                    "revoked",
+                    Instant.now().plusSeconds(60),
+                    Instant.now().minusSeconds(600))));
+
+    revocationService.purge();
+
+    Assertions.assertTrue(revocationService.isRevoked("revoked"));
+  }
+
+  @Test
+  @DisplayName("Revoke when revocation is disabled")
+  void revocationDisabled() {
+    var revocationService =
+        new RevocationService(revokedTokenMutationRepository, false, 100, 60000);
+
+    Assertions.assertThrows(
+        IllegalStateException.class,
+        () -> revocationService.revoke("jti", System.currentTimeMillis() + 60000));
+  }
+}
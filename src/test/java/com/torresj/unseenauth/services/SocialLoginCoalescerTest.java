@@ -0,0 +1,121 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenauth.dtos.AuthSocialTokenDTO;
+import com.torresj.unseenauth.dtos.SocialLoginDTO;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SocialLoginCoalescerTest {
+
+  private final AuthSocialTokenDTO authToken =
+      new AuthSocialTokenDTO("token", AuthProvider.GOOGLE, 123456789);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SocialLoginCoalescer socialLoginCoalescer =
+      new SocialLoginCoalescer(true, meterRegistry);
+
+  @Test
+  @DisplayName("Concurrent identical sign ins call the provider once")
+  void coalesced() throws Exception {
+    var response = new SocialLoginDTO("jwt", "test@test.com", Role.USER);
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var signIns = new AtomicInteger();
+    TokenSignIn provider =
+        token -> {
+          signIns.incrementAndGet();
+          started.countDown();
+          await(release);
+          return response;
+        };
+
+    var executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<SocialLoginDTO> leader =
+          executor.submit(() -> socialLoginCoalescer.signIn(provider, authToken));
+      started.await(5, TimeUnit.SECONDS);
+      Future<SocialLoginDTO> follower =
+          executor.submit(() -> socialLoginCoalescer.signIn(provider, authToken));
+      waitForFollower();
+      release.countDown();
+
+      Assertions.assertSame(response, leader.get(5, TimeUnit.SECONDS));
+      Assertions.assertSame(response, follower.get(5, TimeUnit.SECONDS));
+      Assertions.assertEquals(1, signIns.get());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // Finished sign ins are not reused
+    socialLoginCoalescer.signIn(provider, authToken);
+    Assertions.assertEquals(2, signIns.get());
+  }
+
+  @Test
+  @DisplayName("Followers get the exception of the leader")
+  void coalescedException() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    TokenSignIn provider =
+        token -> {
+          started.countDown();
+          await(release);
+          throw new InvalidAccessTokenException();
+        };
+
+    var executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<SocialLoginDTO> leader =
+          executor.submit(() -> socialLoginCoalescer.signIn(provider, authToken));
+      started.await(5, TimeUnit.SECONDS);
+      Future<SocialLoginDTO> follower =
+          executor.submit(() -> socialLoginCoalescer.signIn(provider, authToken));
+      waitForFollower();
+      release.countDown();
+
+      for (var signIn : new Future<?>[] {leader, follower}) {
+        var exception =
+            Assertions.assertThrows(
+                ExecutionException.class, () -> signIn.get(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(InvalidAccessTokenException.class, exception.getCause());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // The follower is counted right before it starts waiting for the leader
+  private void waitForFollower() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (meterRegistry.find("social.login.coalesced").counter() == null
+        && System.currentTimeMillis() < deadline) Thread.sleep(5);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Sign ins by token, the only ones that are coalesced
+  private interface TokenSignIn extends AuthSocialLogin {
+    @Override
+    default SocialLoginDTO signIn(SocialProfileDTO profile, long nonce) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SocialProfileCacheTest {
+
+  private final String token = "token";
+  private final SocialProfileDTO profile =
+      new SocialProfileDTO("test@test.com", "test", "https://photo.com");
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SocialProfileCache socialProfileCache =
+      new SocialProfileCache(true, 100, 60000, meterRegistry);
+
+  @Test
+  @DisplayName("Profile is resolved once per provider and token")
+  void cacheHit() throws InvalidAccessTokenException, SocialAPIException {
+    AtomicInteger loads = new AtomicInteger();
+    SocialProfileCache.ProfileLoader loader =
+        token -> {
+          loads.incrementAndGet();
+          return profile;
+        };
+
+    socialProfileCache.get(AuthProvider.GOOGLE, token, loader);
+    Assertions.assertEquals(profile, socialProfileCache.get(AuthProvider.GOOGLE, token, loader));
+    Assertions.assertEquals(1, loads.get());
+
+    socialProfileCache.get(AuthProvider.FACEBOOK, token, loader);
+    Assertions.assertEquals(2, loads.get());
+    Assertions.assertEquals(
+        1.0,
+        meterRegistry
+            .get("cache.gets")
+            .tag("cache", "social.profiles")
+            .tag("result", "hit")
+            .functionCounter()
+            .count());
+  }
+
+  @Test
+  @DisplayName("Provider errors are not cached")
+  void errorNotCached() throws InvalidAccessTokenException, SocialAPIException {
+    AtomicInteger loads = new AtomicInteger();
+
+    Assertions.assertThrows(
+        InvalidAccessTokenException.class,
+        () ->
+            socialProfileCache.get(
+                AuthProvider.GOOGLE,
+                token,
+                token -> {
+                  loads.incrementAndGet();
+                  throw new InvalidAccessTokenException();
+                }));
+    socialProfileCache.get(
+        AuthProvider.GOOGLE,
+        token,
+        token -> {
+          loads.incrementAndGet();
+          return profile;
+        });
+
+    Assertions.assertEquals(2, loads.get());
+  }
+}
@@ -0,0 +1,123 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.dtos.SocialProfileDTO;
+import com.torresj.unseenauth.exceptions.InvalidAccessTokenException;
+import com.torresj.unseenauth.exceptions.SocialAPIException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class SocialProviderGuardTest {
+
+  private final SocialProfileDTO profile =
+      new SocialProfileDTO("test@test.com", "test", "https://photo.com");
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SocialProviderGuard socialProviderGuard =
+      new SocialProviderGuard(true, 1, 2, 50, 60000, meterRegistry);
+
+  @Test
+  @DisplayName("Open circuit fails fast until the provider recovers")
+  void circuitOpen() throws InvalidAccessTokenException, SocialAPIException {
+    AtomicInteger calls = new AtomicInteger();
+    SocialProfileCache.ProfileLoader timeout =
+        token -> {
+          calls.incrementAndGet();
+          throw new ResourceAccessException("Read timed out");
+        };
+
+    for (int i = 0; i < 2; i++)
+      Assertions.assertThrows(
+          ResourceAccessException.class,
+          () -> socialProviderGuard.get(AuthProvider.GOOGLE, "token", timeout));
+    Assertions.assertThrows(
+        SocialAPIException.class,
+        () -> socialProviderGuard.get(AuthProvider.GOOGLE, "token", timeout));
+    Assertions.assertEquals(2, calls.get());
+
+    // Other providers are not affected
+    Assertions.assertEquals(
+        profile, socialProviderGuard.get(AuthProvider.FACEBOOK, "token", token -> profile));
+
+    var health = new SocialProvidersHealthIndicator(socialProviderGuard).health();
+    Assertions.assertEquals(SocialProvidersHealthIndicator.DEGRADED, health.getStatus());
+    Assertions.assertEquals("OPEN", health.getDetails().get("GOOGLE"));
+    Assertions.assertEquals(
+        1.0,
+        meterRegistry
+            .get("social.provider.circuit.state")
+            .tag("provider", "GOOGLE")
+            .gauge()
+            .value());
+    Assertions.assertEquals(
+        1.0,
+        meterRegistry
+            .get("social.provider.rejected")
+            .tag("provider", "GOOGLE")
+            .tag("reason", "circuit")
+            .counter()
+            .count());
+  }
+
+  @Test
+  @DisplayName("Invalid tokens do not open the circuit")
+  void invalidToken() {
+    for (int i = 0; i < 3; i++)
+      Assertions.assertThrows(
+          InvalidAccessTokenException.class,
+          () ->
+              socialProviderGuard.get(
+                  AuthProvider.GOOGLE,
+                  "token",
+                  token -> {
+                    throw new InvalidAccessTokenException();
+                  }));
+
+    var health = new SocialProvidersHealthIndicator(socialProviderGuard).health();
+    Assertions.assertEquals(Status.UP, health.getStatus());
+  }
+
+  @Test
+  @DisplayName("Calls over the provider concurrency limit are rejected")
+  void bulkhead() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var executor = Executors.newSingleThreadExecutor();
+    try {
+      var slowCall =
+          executor.submit(
+              () ->
+                  socialProviderGuard.get(
+                      AuthProvider.GOOGLE,
+                      "token",
+                      token -> {
+                        started.countDown();
+                        try {
+                          release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException exception) {
+                          Thread.currentThread().interrupt();
+                        }
+                        return profile;
+                      }));
+      Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+      Assertions.assertThrows(
+          SocialAPIException.class,
+          () -> socialProviderGuard.get(AuthProvider.GOOGLE, "token", token -> profile));
+      release.countDown();
+      Assertions.assertEquals(profile, slowCall.get(5, TimeUnit.SECONDS));
+      Assertions.assertEquals(
+          profile, socialProviderGuard.get(AuthProvider.GOOGLE, "token", token -> profile));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseenauth.config.AbortableRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+class SocialRequestHedgerTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final CountDownLatch slowResponse = new CountDownLatch(1);
+  private final AtomicBoolean aborted = new AtomicBoolean();
+
+  @AfterEach
+  void tearDown() {
+    slowResponse.countDown();
+    executor.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Slow request is hedged and the first response wins")
+  void hedged() throws InterruptedException {
+    var hedger = hedger(1.0);
+    AtomicInteger attempts = new AtomicInteger();
+
+    String response = hedger.get(AuthProvider.GOOGLE, slowFirstAttempt(attempts));
+
+    Assertions.assertEquals("attempt 2", response);
+    Assertions.assertEquals(2, attempts.get());
+    Assertions.assertTrue(aborted.get());
+    Assertions.assertEquals(1.0, count("social.hedging.hedges"));
+    // The win is counted right after the response is handed over
+    long deadline = System.currentTimeMillis() + 5000;
+    while (count("social.hedging.wins") == 0 && System.currentTimeMillis() < deadline)
+      Thread.sleep(5);
+    Assertions.assertEquals(1.0, count("social.hedging.wins"));
+  }
+
+  @Test
+  @DisplayName("Hedges are not sent over the budget")
+  void budget() throws InterruptedException {
+    var hedger = hedger(0);
+    AtomicInteger attempts = new AtomicInteger();
+
+    var request =
+        executor.submit(() -> hedger.get(AuthProvider.GOOGLE, slowFirstAttempt(attempts)));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (meterRegistry.find("social.hedging.skipped").counter() == null
+        || count("social.hedging.skipped") == 0 && System.currentTimeMillis() < deadline)
+      Thread.sleep(5);
+    slowResponse.countDown();
+
+    Assertions.assertDoesNotThrow(() -> request.get(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(1, attempts.get());
+    Assertions.assertEquals(0.0, count("social.hedging.hedges"));
+    Assertions.assertEquals(1.0, count("social.hedging.skipped"));
+  }
+
+  @Test
+  @DisplayName("Hedges are not sent without a free thread")
+  void noFreeThread() throws InterruptedException {
+    var hedger =
+        new SocialRequestHedger(
+            new TaskExecutorAdapter(
+                command -> {
+                  throw new RejectedExecutionException();
+                }),
+            true,
+            0.95,
+            20,
+            50,
+            1.0,
+            meterRegistry);
+    AtomicInteger attempts = new AtomicInteger();
+
+    var request =
+        executor.submit(() -> hedger.get(AuthProvider.GOOGLE, slowFirstAttempt(attempts)));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (meterRegistry.find("social.hedging.skipped").counter() == null
+        || count("social.hedging.skipped") == 0 && System.currentTimeMillis() < deadline)
+      Thread.sleep(5);
+    slowResponse.countDown();
+
+    Assertions.assertDoesNotThrow(() -> request.get(5, TimeUnit.SECONDS));
+    Assertions.assertEquals(1, attempts.get());
+    Assertions.assertEquals(0.0, count("social.hedging.hedges"));
+    Assertions.assertEquals(1.0, count("social.hedging.skipped"));
+  }
+
+  @Test
+  @DisplayName("Errors are thrown and not hedged")
+  void error() {
+    var hedger = hedger(1.0);
+
+    Assertions.assertThrows(
+        ResourceAccessException.class,
+        () ->
+            hedger.get(
+                AuthProvider.GOOGLE,
+                () -> {
+                  throw new ResourceAccessException("Connection refused");
+                }));
+    Assertions.assertEquals(0.0, count("social.hedging.hedges"));
+  }
+
+  private SocialRequestHedger hedger(double maxRate) {
+    return new SocialRequestHedger(
+        new TaskExecutorAdapter(executor), true, 0.95, 20, 50, maxRate, meterRegistry);
+  }
+
+  // First attempt answers only when it is aborted or the test ends, the next ones right away
+  private Supplier<String> slowFirstAttempt(AtomicInteger attempts) {
+    return () -> {
+      int attempt = attempts.incrementAndGet();
+      if (attempt == 1) {
+        AbortableRequest.register(
+            () -> {
+              aborted.set(true);
+              slowResponse.countDown();
+              return true;
+            });
+        try {
+          slowResponse.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      return "attempt " + attempt;
+    };
+  }
+
+  private double count(String name) {
+    return meterRegistry.get(name).tag("provider", "GOOGLE").counter().count();
+  }
+}
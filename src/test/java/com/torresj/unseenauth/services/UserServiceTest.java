@@ -0,0 +1,274 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.AuthProvider;
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseen.repositories.mutations.UserMutationRepository;
+import com.torresj.unseen.repositories.queries.UserQueryRepository;
+import com.torresj.unseenauth.dtos.UserCredentialsDTO;
+import com.torresj.unseenauth.exceptions.UserNotFoundException;
+import com.torresj.unseenauth.repositories.mutations.UserLoginMutationRepository;
+import com.torresj.unseenauth.repositories.queries.UserCachedQueryRepository;
+import com.torresj.unseenauth.repositories.queries.UserCredentialsQueryRepository;
+import com.torresj.unseenauth.repositories.queries.UserEmailQueryRepository;
+import com.torresj.unseenauth.repositories.queries.UserEmailQueryRepository.UserEmail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.torresj.unseenauth.utils.TestUtils.GenerateUser;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+  private final String email = "test@test.com";
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Mock private UserQueryRepository userQueryRepository;
+  @Mock private UserCredentialsQueryRepository userCredentialsQueryRepository;
+  @Mock private UserCachedQueryRepository userCachedQueryRepository;
+  @Mock private UserMutationRepository userMutationRepository;
+  @Mock private UserLoginMutationRepository userLoginMutationRepository;
+  @Mock private UserEmailQueryRepository userEmailQueryRepository;
+  @Mock private LoginCountWriter loginCountWriter;
+  @Mock private UserCacheEvictor userCacheEvictor;
+  private KnownEmailFilter knownEmailFilter;
+  private UserService userService;
+
+  @BeforeEach
+  void setUp() {
+    knownEmailFilter = new KnownEmailFilter(userEmailQueryRepository, true, 100, 1000);
+    userService = userService(true);
+  }
+
+  @Test
+  @DisplayName("Users are read through the cache by normalized email")
+  void cacheHit() throws UserNotFoundException {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    when(userQueryRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+    userService.get(email);
+    UserEntity cached = userService.get(" Test@Test.com");
+
+    Assertions.assertEquals(email, cached.getEmail());
+    Assertions.assertNotSame(user, cached);
+    verify(userQueryRepository, times(1)).findByEmail(any());
+    Assertions.assertEquals(
+        1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+  }
+
+  @Test
+  @DisplayName("Saved users replace their cached entry")
+  void saveUpdatesCache() throws UserNotFoundException {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    when(userQueryRepository.findByEmail(email)).thenReturn(Optional.of(user));
+    when(userMutationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+    UserEntity loaded = userService.get(email);
+    loaded.setNumLogins(loaded.getNumLogins() + 1);
+    Assertions.assertEquals(user.getNumLogins(), userService.get(email).getNumLogins());
+
+    userService.save(loaded);
+    Assertions.assertEquals(loaded.getNumLogins(), userService.get(email).getNumLogins());
+    verify(userQueryRepository, times(1)).findByEmail(any());
+  }
+
+  @Test
+  @DisplayName("Concurrent misses of the same user share one query")
+  void coalescedLoad() throws Exception {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    var loading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    when(userQueryRepository.findByEmail(email))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return Optional.of(user);
+            });
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      var first = executor.submit(() -> userService.get(email));
+      Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+      var second = executor.submit(() -> userService.get(email));
+      Thread.sleep(50);
+      release.countDown();
+
+      Assertions.assertEquals(email, first.get(5, TimeUnit.SECONDS).getEmail());
+      Assertions.assertEquals(email, second.get(5, TimeUnit.SECONDS).getEmail());
+      verify(userQueryRepository, times(1)).findByEmail(any());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("A slow load does not replace a user saved meanwhile")
+  void slowLoadAfterSave() throws Exception {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    var loading = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    when(userQueryRepository.findByEmail(email))
+        .thenAnswer(
+            invocation -> {
+              loading.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return Optional.of(user);
+            });
+    when(userMutationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      var slow = executor.submit(() -> userService.get(email));
+      Assertions.assertTrue(loading.await(5, TimeUnit.SECONDS));
+      userService.save(user.toBuilder().numLogins(user.getNumLogins() + 1).build());
+      release.countDown();
+      slow.get(5, TimeUnit.SECONDS);
+
+      Assertions.assertEquals(user.getNumLogins() + 1, userService.get(email).getNumLogins());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  @DisplayName("Unknown users are not cached")
+  void userNotFound() {
+    when(userQueryRepository.findByEmail(email)).thenReturn(Optional.empty());
+
+    Assertions.assertThrows(UserNotFoundException.class, () -> userService.get(email));
+    Assertions.assertThrows(UserNotFoundException.class, () -> userService.get(email));
+    verify(userQueryRepository, times(2)).findByEmail(any());
+  }
+
+  @Test
+  @DisplayName("Unknown emails are rejected without querying the database")
+  void unknownEmail() throws UserNotFoundException {
+    UserEmail known = Mockito.mock(UserEmail.class);
+    when(known.getId()).thenReturn(1L);
+    when(known.getEmail()).thenReturn(email);
+    when(userEmailQueryRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+        .thenReturn(List.of(known));
+    knownEmailFilter.sync();
+
+    Assertions.assertThrows(UserNotFoundException.class, () -> userService.get("unknown@test.com"));
+    verifyNoInteractions(userQueryRepository);
+
+    when(userQueryRepository.findByEmail(email))
+        .thenReturn(Optional.of(GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true)));
+    Assertions.assertEquals(email, userService.get(email).getEmail());
+  }
+
+  @Test
+  @DisplayName("Login is registered only when the nonce is new")
+  void registerLogin() throws UserNotFoundException {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    when(userQueryRepository.findByEmail(email)).thenReturn(Optional.of(user));
+    when(userLoginMutationRepository.registerLogin(user.getId(), 223456789)).thenReturn(1);
+    when(userLoginMutationRepository.registerLogin(user.getId(), 1)).thenReturn(0);
+    userService.get(email);
+
+    Assertions.assertTrue(userService.registerLogin(user, 223456789));
+    Assertions.assertFalse(userService.registerLogin(user, 1));
+
+    UserEntity cached = userService.get(email);
+    Assertions.assertEquals(user.getNumLogins() + 1, cached.getNumLogins());
+    Assertions.assertEquals(223456789, cached.getNonce());
+  }
+
+  @Test
+  @DisplayName("Credentials are read with a projection when the cache is disabled")
+  void credentials() throws UserNotFoundException {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    var credentials = UserCredentialsDTO.from(user);
+    when(userCredentialsQueryRepository.findCredentialsByEmail(email))
+        .thenReturn(Optional.of(credentials));
+
+    Assertions.assertEquals(credentials, userService(false).getCredentials(email));
+    verifyNoInteractions(userQueryRepository);
+  }
+
+  @Test
+  @DisplayName("Credentials are read through the cache when it is enabled")
+  void cachedCredentials() throws UserNotFoundException {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    when(userQueryRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+    userService.getCredentials(email);
+    Assertions.assertEquals(UserCredentialsDTO.from(user), userService.getCredentials(email));
+    verify(userQueryRepository, times(1)).findByEmail(any());
+    verifyNoInteractions(userCredentialsQueryRepository);
+  }
+
+  @Test
+  @DisplayName("Users are read through the second level cache and refreshed after a login")
+  void secondLevelCache() throws UserNotFoundException {
+    UserEntity user = GenerateUser(email, "test", Role.USER, AuthProvider.UNSEEN, true);
+    when(userCacheEvictor.isEnabled()).thenReturn(true);
+    when(userCachedQueryRepository.findIdByEmail(email)).thenReturn(Optional.of(user.getId()));
+    when(userCachedQueryRepository.findCachedIdByEmail(email))
+        .thenReturn(Optional.of(user.getId()));
+    when(userCachedQueryRepository.findById(user.getId())).thenReturn(Optional.of(user));
+    when(userLoginMutationRepository.registerLogin(user.getId(), 223456789)).thenReturn(1);
+    var service = userService(false);
+
+    Assertions.assertEquals(UserCredentialsDTO.from(user), service.getCredentials(email));
+    Assertions.assertTrue(service.registerLogin(user, 223456789));
+    Assertions.assertEquals(UserCredentialsDTO.from(user), service.getCredentials(email));
+
+    // Found emails are looked up through the query cache from then on
+    verify(userCachedQueryRepository, times(1)).findIdByEmail(email);
+    verify(userCachedQueryRepository, times(1)).findCachedIdByEmail(email);
+    verify(userCacheEvictor).evict(user.getId());
+    verify(userCachedQueryRepository, times(3)).findById(user.getId());
+    verifyNoInteractions(userQueryRepository, userCredentialsQueryRepository);
+  }
+
+  @Test
+  @DisplayName("Emails not found are not looked up through the query cache")
+  void secondLevelCacheMiss() {
+    when(userCacheEvictor.isEnabled()).thenReturn(true);
+    when(userCachedQueryRepository.findIdByEmail(email)).thenReturn(Optional.empty());
+    var service = userService(false);
+
+    Assertions.assertThrows(UserNotFoundException.class, () -> service.get(email));
+    Assertions.assertThrows(UserNotFoundException.class, () -> service.get(email));
+
+    verify(userCachedQueryRepository, times(2)).findIdByEmail(email);
+    verify(userCachedQueryRepository, never()).findCachedIdByEmail(any());
+  }
+
+  private UserService userService(boolean cacheEnabled) {
+    return new UserService(
+        new UserReader(
+            userQueryRepository,
+            userCredentialsQueryRepository,
+            userCachedQueryRepository,
+            knownEmailFilter,
+            userCacheEvictor,
+            new RecentUserWrites(5000, 100),
+            100),
+        new UserCache(cacheEnabled, 100, 60000, meterRegistry),
+        userMutationRepository,
+        new UserLoginRecorder(userLoginMutationRepository, loginCountWriter));
+  }
+}
@@ -0,0 +1,83 @@
+package com.torresj.unseenauth.services;
+
+import com.torresj.unseen.entities.Role;
+import com.torresj.unseenauth.dtos.AuthorizeResponseDTO;
+import com.torresj.unseenauth.dtos.VerifiedJwtDTO;
+import io.jsonwebtoken.MalformedJwtException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+class VerifiedTokenCacheTest {
+
+  private final AuthorizeResponseDTO authorization =
+      new AuthorizeResponseDTO("test@test.com", Role.USER);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  @DisplayName("Verified token is served from cache")
+  void cacheHit() {
+    var cache = new VerifiedTokenCache(true, 100, meterRegistry);
+    var calls = new AtomicInteger();
+    Function<String, VerifiedJwtDTO> verifier =
+        jwt -> {
+          calls.incrementAndGet();
+          return new VerifiedJwtDTO(authorization, System.currentTimeMillis() + 60000, "jti");
+        };
+
+    Assertions.assertEquals(authorization, cache.get("jwt", verifier).authorization());
+    Assertions.assertEquals(authorization, cache.get("jwt", verifier).authorization());
+    Assertions.assertEquals(1, calls.get());
+    Assertions.assertEquals(
+        1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+  }
+
+  @Test
+  @DisplayName("Expired token is not cached")
+  void expiredTokenNotCached() {
+    var cache = new VerifiedTokenCache(true, 100, meterRegistry);
+    var calls = new AtomicInteger();
+    Function<String, VerifiedJwtDTO> verifier =
+        jwt -> {
+          calls.incrementAndGet();
+          return new VerifiedJwtDTO(authorization, System.currentTimeMillis() - 1, "jti");
+        };
+
+    cache.get("jwt", verifier);
+    cache.get("jwt", verifier);
+    Assertions.assertEquals(2, calls.get());
+  }
+
+  @Test
+  @DisplayName("Invalid token exception is propagated and not cached")
+  void invalidTokenNotCached() {
+    var cache = new VerifiedTokenCache(true, 100, meterRegistry);
+    Function<String, VerifiedJwtDTO> verifier =
+        jwt -> {
+          throw new MalformedJwtException("Invalid");
+        };
+
+    Assertions.assertThrows(MalformedJwtException.class, () -> cache.get("jwt", verifier));
+    Assertions.assertThrows(MalformedJwtException.class, () -> cache.get("jwt", verifier));
+  }
+
+  @Test
+  @DisplayName("Disabled cache always verifies")
+  void disabledCache() {
+    var cache = new VerifiedTokenCache(false, 100, meterRegistry);
+    var calls = new AtomicInteger();
+    Function<String, VerifiedJwtDTO> verifier =
+        jwt -> {
+          calls.incrementAndGet();
+          return new VerifiedJwtDTO(authorization, System.currentTimeMillis() + 60000, "jti");
+        };
+
+    cache.get("jwt", verifier);
+    cache.get("jwt", verifier);
+    Assertions.assertEquals(2, calls.get());
+  }
+}
@@ -3,6 +3,13 @@ package com.torresj.unseenauth.utils;
 import com.torresj.unseen.entities.AuthProvider;
 import com.torresj.unseen.entities.Role;
 import com.torresj.unseen.entities.UserEntity;
+import com.torresj.unseenauth.repositories.mutations.RevokedTokenMutationRepository;
+import com.torresj.unseenauth.services.JwtKeyManager;
+import com.torresj.unseenauth.services.JwtService;
+import com.torresj.unseenauth.services.RevocationService;
+import com.torresj.unseenauth.services.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
 
 import java.time.LocalDateTime;
 
@@ -24,4 +31,15 @@ public class TestUtils {
         provider,
         123456789);
   }
+
+  public static JwtService GenerateJwtService(
+      JwtKeyManager keyManager, String expiration, String prefix, String issuer) {
+    return new JwtService(
+        keyManager,
+        new VerifiedTokenCache(false, 1, new SimpleMeterRegistry()),
+        new RevocationService(Mockito.mock(RevokedTokenMutationRepository.class), false, 1, 0),
+        expiration,
+        prefix,
+        issuer);
+  }
 }